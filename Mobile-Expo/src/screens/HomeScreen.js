@@ -10,9 +10,7 @@ import {
 } from 'react-native';
 import { useDispatch, useSelector } from 'react-redux';
 import { logout } from '../store/authSlice';
-import { fetchGoals } from '../store/goalsSlice';
-import { fetchBuddies } from '../store/buddySlice';
-import { fetchUnreadMessages } from '../store/chatSlice';
+import { fetchDashboard } from '../store/dashboard';
 import { healthAPI } from '../services/api';
 
 const HomeScreen = ({ navigation }) => {
@@ -40,9 +38,7 @@ const HomeScreen = ({ navigation }) => {
   };
 
   const loadDashboardData = () => {
-    dispatch(fetchGoals());
-    dispatch(fetchBuddies());
-    dispatch(fetchUnreadMessages());
+    dispatch(fetchDashboard());
   };
 
   const onRefresh = async () => {
@@ -245,9 +245,10 @@ export const chatAPI = {
     }
   },
 
-  getChatHistory: async (receiverId) => {
+  // Newest first; pass the previous page's nextCursor as `before` to load older messages
+  getChatHistory: async (receiverId, { limit, before } = {}) => {
     try {
-      return await apiClient.get(`/chat/history/${receiverId}`);
+      return await apiClient.get(`/chat/history/${receiverId}`, { params: { limit, before } });
     } catch (error) {
       throw error;
     }
@@ -260,6 +261,28 @@ export const chatAPI = {
       throw error;
     }
   },
+
+  // One call when a conversation is opened; upTo is the newest displayed message's timestamp
+  markConversationRead: async (otherUserId, upTo) => {
+    try {
+      return await apiClient.put(`/chat/conversations/${otherUserId}/read`, upTo ? { upTo } : {});
+    } catch (error) {
+      throw error;
+    }
+  },
+};
+
+// Dashboard API
+export const dashboardAPI = {
+  // Goals, buddies, pending requests and the unread count in one call; sections that were too
+  // slow come back null and are listed in `degraded`
+  getDashboard: async () => {
+    try {
+      return await apiClient.get('/dashboard');
+    } catch (error) {
+      throw error;
+    }
+  },
 };
 
 // Health check API
@@ -1,5 +1,6 @@
 import { createSlice, createAsyncThunk } from '@reduxjs/toolkit';
 import { buddyAPI } from '../services/api';
+import { fetchDashboard } from './dashboard';
 
 // Async thunks for buddy operations
 export const fetchBuddies = createAsyncThunk(
@@ -98,6 +99,18 @@ const buddySlice = createSlice({
         state.loading = false;
         state.error = action.payload;
       })
+      // Buddies section of the dashboard, reshaped like /buddies/my-buddies entries
+      .addCase(fetchDashboard.fulfilled, (state, action) => {
+        if (action.payload.buddies) {
+          state.buddies = action.payload.buddies.map(buddy => ({
+            relationshipId: buddy.relationshipId,
+            buddy: buddy.user,
+            goal: { id: buddy.goalId, title: buddy.goalTitle },
+            compatibilityScore: buddy.compatibilityScore,
+            daysActive: buddy.daysActive,
+          }));
+        }
+      })
       // Request buddy
       .addCase(requestBuddy.pending, (state) => {
         state.loading = true;
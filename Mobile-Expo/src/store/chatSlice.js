@@ -1,5 +1,6 @@
 import { createSlice, createAsyncThunk } from '@reduxjs/toolkit';
 import { chatAPI } from '../services/api';
+import { fetchDashboard } from './dashboard';
 
 // Async thunks for chat operations
 export const sendMessage = createAsyncThunk(
@@ -16,10 +17,10 @@ export const sendMessage = createAsyncThunk(
 
 export const fetchChatHistory = createAsyncThunk(
   'chat/fetchChatHistory',
-  async (receiverId, { rejectWithValue }) => {
+  async ({ receiverId, before } = {}, { rejectWithValue }) => {
     try {
-      const response = await chatAPI.getChatHistory(receiverId);
-      return response;
+      const response = await chatAPI.getChatHistory(receiverId, { before });
+      return { ...response, receiverId, before };
     } catch (error) {
       return rejectWithValue(error.message || 'Failed to fetch chat history');
     }
@@ -46,6 +47,8 @@ const initialState = {
   error: null,
   firebaseAvailable: true, // Will be set to false if Firebase not configured
   chatHistory: {}, // Store chat history by receiverId
+  historyCursors: {}, // nextCursor per receiverId, null once the oldest page is loaded
+  unreadByConversation: {}, // unread count per conversationId
 };
 
 const chatSlice = createSlice({
@@ -112,11 +115,15 @@ const chatSlice = createSlice({
       })
       .addCase(fetchChatHistory.fulfilled, (state, action) => {
         state.loading = false;
-        if (Array.isArray(action.payload)) {
-          state.messages = action.payload;
-          // Store in history
-          if (state.currentChat) {
-            state.chatHistory[state.currentChat] = action.payload;
+        const { receiverId, before, messages, nextCursor } = action.payload;
+        if (Array.isArray(messages)) {
+          // Pages arrive newest first; the chat view renders oldest first
+          const page = [...messages].reverse();
+          const history = before ? [...page, ...(state.chatHistory[receiverId] || [])] : page;
+          state.chatHistory[receiverId] = history;
+          state.historyCursors[receiverId] = nextCursor || null;
+          if (state.currentChat === receiverId) {
+            state.messages = history;
           }
         } else if (action.payload.status === 'firebase_not_configured') {
           state.firebaseAvailable = false;
@@ -127,6 +134,12 @@ const chatSlice = createSlice({
         state.loading = false;
         state.error = action.payload;
       })
+      // Unread total from the dashboard; per-conversation counts still come from /chat/unread
+      .addCase(fetchDashboard.fulfilled, (state, action) => {
+        if (action.payload.unreadCount != null) {
+          state.unreadCount = action.payload.unreadCount;
+        }
+      })
       // Fetch unread messages
       .addCase(fetchUnreadMessages.fulfilled, (state, action) => {
         if (action.payload.status === 'firebase_not_configured') {
@@ -134,6 +147,7 @@ const chatSlice = createSlice({
           state.unreadCount = 0;
         } else {
           state.unreadCount = action.payload.unreadCount || 0;
+          state.unreadByConversation = action.payload.conversations || {};
         }
       });
   },
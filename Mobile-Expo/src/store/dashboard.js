@@ -0,0 +1,17 @@
+import { createAsyncThunk } from '@reduxjs/toolkit';
+import { dashboardAPI } from '../services/api';
+
+// One GET /dashboard on launch instead of separate goals, buddies and unread calls.
+// The goals, buddy and chat slices each take their section from the payload; a section
+// that is null (degraded on the server) leaves that slice as it was.
+export const fetchDashboard = createAsyncThunk(
+  'dashboard/fetchDashboard',
+  async (_, { rejectWithValue }) => {
+    try {
+      const response = await dashboardAPI.getDashboard();
+      return response;
+    } catch (error) {
+      return rejectWithValue(error.message || 'Failed to load dashboard');
+    }
+  }
+);
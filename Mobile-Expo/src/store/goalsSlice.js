@@ -1,5 +1,6 @@
 import { createSlice, createAsyncThunk } from '@reduxjs/toolkit';
 import { goalsAPI } from '../services/api';
+import { fetchDashboard } from './dashboard';
 
 // Async thunks for goals operations
 export const fetchGoals = createAsyncThunk(
@@ -103,6 +104,14 @@ const goalsSlice = createSlice({
         state.loading = false;
         state.error = action.payload;
       })
+      // Goals section of the dashboard
+      .addCase(fetchDashboard.fulfilled, (state, action) => {
+        if (action.payload.goals) {
+          state.goals = action.payload.goals;
+          state.activeGoals = state.goals.filter(goal => goal.status === 'ACTIVE');
+          state.completedGoals = state.goals.filter(goal => goal.status === 'COMPLETED');
+        }
+      })
       // Create goal
       .addCase(createGoal.pending, (state) => {
         state.loading = true;
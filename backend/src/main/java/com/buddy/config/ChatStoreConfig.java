@@ -0,0 +1,54 @@
+package com.buddy.config;
+
+import com.buddy.service.ChatStore;
+import com.buddy.service.FirestoreChatStore;
+import com.buddy.service.FirestoreService;
+import com.buddy.service.PostgresChatStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Picks the chat storage engine. chat.store=firestore or postgres selects one explicitly;
+ * left empty, Firestore is used when Firebase is enabled and Postgres otherwise.
+ */
+@Configuration
+public class ChatStoreConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatStoreConfig.class);
+    
+    @Bean
+    public ChatStore chatStore(@Value("${chat.store:}") String store,
+                               @Value("${chat.postgres.max-batch-size:100}") int maxBatchSize,
+                               @Value("${chat.postgres.queue-capacity:10000}") int queueCapacity,
+                               ObjectProvider<FirestoreService> firestoreService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               AsyncTaskExecutor applicationTaskExecutor,
+                               MeterRegistry meterRegistry) {
+        FirestoreService firestore = firestoreService.getIfAvailable();
+        boolean useFirestore = store.isBlank() ? firestore != null : store.equalsIgnoreCase("firestore");
+        
+        if (useFirestore) {
+            if (firestore == null) {
+                throw new IllegalStateException("chat.store=firestore requires firebase.enabled=true");
+            }
+            logger.info("Chat messages stored in Firestore");
+            return new FirestoreChatStore(firestore);
+        }
+        if (!store.isBlank() && !store.equalsIgnoreCase("postgres")) {
+            throw new IllegalStateException("Unknown chat.store '" + store + "', expected firestore or postgres");
+        }
+        logger.info("Chat messages stored in Postgres (batches of up to {})", maxBatchSize);
+        return new PostgresChatStore(jdbcTemplate, new TransactionTemplate(transactionManager),
+                applicationTaskExecutor, meterRegistry, maxBatchSize, queueCapacity);
+    }
+}
@@ -0,0 +1,56 @@
+package com.buddy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the Hikari pool from the available cores and the database connection budget when
+ * database.pool.auto-size is on (the prod profile) and spring.datasource.hikari.maximum-pool-size
+ * is not set explicitly.
+ */
+@Component
+public class DataSourcePoolSizer implements BeanPostProcessor, Ordered {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DataSourcePoolSizer.class);
+    
+    private final Environment environment;
+    
+    public DataSourcePoolSizer(Environment environment) {
+        this.environment = environment;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof HikariDataSource dataSource
+                && environment.getProperty("database.pool.auto-size", Boolean.class, false)
+                && !environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+            int poolSize = calculatePoolSize();
+            dataSource.setMaximumPoolSize(poolSize);
+            logger.info("Hikari pool '{}' sized to {} connections", beanName, poolSize);
+        }
+        return bean;
+    }
+    
+    int calculatePoolSize() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int dbMaxConnections = environment.getProperty("database.pool.db-max-connections", Integer.class, 100);
+        int reserved = environment.getProperty("database.pool.reserved-connections", Integer.class, 10);
+        int instances = Math.max(1, environment.getProperty("database.pool.instances", Integer.class, 1));
+        
+        // Classic (cores * 2) + 1 sizing, capped by this instance's share of the server limit
+        int byCores = cores * 2 + 1;
+        int byBudget = (dbMaxConnections - reserved) / instances;
+        return Math.max(2, Math.min(byCores, byBudget));
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,61 @@
+package com.buddy.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for @Async work and the dashboard fan-out. With spring.threads.virtual.enabled=true
+ * (Java 21, see application-vthreads.yml) both run on virtual threads; concurrency is then
+ * bounded by a limit instead of a pool size. Tasks carry the submitting thread's observation,
+ * so their spans and log trace ids belong to the request that started them.
+ */
+@Configuration
+@EnableAsync
+public class ExecutorConfig {
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    // Declared here because defining dashboardExecutor switches off Boot's default executor
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    @Primary
+    public AsyncTaskExecutor applicationTaskExecutor(SimpleAsyncTaskExecutorBuilder simpleBuilder,
+                                                     ThreadPoolTaskExecutorBuilder poolBuilder) {
+        if (virtualThreads) {
+            return simpleBuilder.threadNamePrefix("task-").virtualThreads(true)
+                    .taskDecorator(new ContextPropagatingTaskDecorator()).build();
+        }
+        return poolBuilder.threadNamePrefix("task-").taskDecorator(new ContextPropagatingTaskDecorator()).build();
+    }
+    
+    // Fans out the independent sections of GET /dashboard
+    @Bean
+    public AsyncTaskExecutor dashboardExecutor(
+            @Value("${dashboard.executor.core-size:8}") int coreSize,
+            @Value("${dashboard.executor.max-size:32}") int maxSize,
+            @Value("${dashboard.executor.queue-capacity:200}") int queueCapacity) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("dashboard-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(maxSize);
+            executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+}
@@ -1,8 +1,13 @@
 package com.buddy.config;
 
+import com.google.cloud.NoCredentials;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.FirestoreClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,13 +15,32 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class FirestoreConfig {
     
+    private static final Logger logger = LoggerFactory.getLogger(FirestoreConfig.class);
+    
+    // host:port of a local emulator (docker compose --profile firestore up); no credentials needed
+    @Value("${firebase.firestore.emulator-host:}")
+    private String emulatorHost;
+    
+    @Value("${firebase.firestore.project-id:demo-buddy}")
+    private String projectId;
+    
     @Bean
     @ConditionalOnProperty(name = "firebase.enabled", havingValue = "true", matchIfMissing = false)
     public Firestore firestore() {
+        if (!emulatorHost.isBlank()) {
+            logger.info("Using Firestore emulator at {} (project {})", emulatorHost, projectId);
+            return FirestoreOptions.newBuilder()
+                    .setProjectId(projectId)
+                    .setEmulatorHost(emulatorHost)
+                    .setCredentials(NoCredentials.getInstance())
+                    .build()
+                    .getService();
+        }
+        
         // Check if Firebase is initialized before creating Firestore client
         if (FirebaseApp.getApps().isEmpty()) {
             throw new IllegalStateException("Firebase must be initialized before creating Firestore client");
         }
         return FirestoreClient.getFirestore();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.buddy.config;
+
+import com.buddy.service.DeviceRegistry;
+import com.buddy.service.FakeNotificationSender;
+import com.buddy.service.FcmNotificationSender;
+import com.buddy.service.NotificationDispatcher;
+import com.buddy.service.NotificationSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Push notification transport and dispatcher. notifications.sender=fcm or fake selects the
+ * transport; left empty, FCM is used when Firebase is enabled and the fake sender otherwise.
+ */
+@Configuration
+public class NotificationConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationConfig.class);
+    
+    @Bean
+    public NotificationSender notificationSender(@Value("${notifications.sender:}") String sender,
+                                                 @Value("${firebase.enabled:false}") boolean firebaseEnabled,
+                                                 @Value("${notifications.fake.latency-ms:20}") long fakeLatencyMs) {
+        boolean useFcm = sender.isBlank() ? firebaseEnabled : sender.equalsIgnoreCase("fcm");
+        if (useFcm) {
+            logger.info("Push notifications sent through FCM");
+            return new FcmNotificationSender();
+        }
+        if (!sender.isBlank() && !sender.equalsIgnoreCase("fake")) {
+            throw new IllegalStateException("Unknown notifications.sender '" + sender + "', expected fcm or fake");
+        }
+        logger.info("Push notifications sent through the offline fake sender");
+        return new FakeNotificationSender(fakeLatencyMs);
+    }
+    
+    @Bean
+    public NotificationDispatcher notificationDispatcher(NotificationSender notificationSender,
+                                                         DeviceRegistry deviceRegistry,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${notifications.queue-capacity:50000}") int queueCapacity,
+                                                         @Value("${notifications.workers:2}") int workers,
+                                                         @Value("${notifications.retry.max-attempts:4}") int maxAttempts,
+                                                         @Value("${notifications.retry.initial-backoff-ms:500}") long initialBackoffMs,
+                                                         @Value("${notifications.retry.max-backoff-ms:30000}") long maxBackoffMs) {
+        return new NotificationDispatcher(notificationSender, deviceRegistry,
+                new NotificationDispatcher.Settings(queueCapacity, workers, maxAttempts, initialBackoffMs, maxBackoffMs),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.buddy.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns @Observed service methods (buddy.matching, buddy.fcm) into observations, which the
+ * actuator records as timers. Histogram and SLO buckets are set under management.metrics.distribution.
+ */
+@Configuration
+public class ObservationConfig {
+
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.buddy.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replica routing when
+ * database.replicas.enabled=true. Replica pools inherit the primary's Hikari settings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "database.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    
+    @Value("${database.replicas.urls}")
+    private String[] replicaUrls;
+    
+    @Value("${database.replicas.username:}")
+    private String replicaUsername;
+    
+    @Value("${database.replicas.password:}")
+    private String replicaPassword;
+    
+    @Value("${database.replicas.lag-query}")
+    private String lagQuery;
+    
+    @Value("${database.replicas.max-lag-ms:1000}")
+    private long maxLagMs;
+    
+    @Value("${database.replicas.sticky-window-ms:5000}")
+    private long stickyWindowMs;
+    
+    @Value("${database.replicas.check-interval-ms:2000}")
+    private long checkIntervalMs;
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls[i].trim());
+            if (StringUtils.hasText(replicaUsername)) {
+                config.setUsername(replicaUsername);
+                config.setPassword(replicaPassword);
+            }
+            config.setPoolName(primaryDataSource.getPoolName() + "-replica-" + (i + 1));
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1); // a down replica must not block startup
+            replicas.put("replica-" + (i + 1), new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                lagQuery, maxLagMs, stickyWindowMs, checkIntervalMs);
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
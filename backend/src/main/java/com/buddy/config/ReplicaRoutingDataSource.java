@@ -0,0 +1,158 @@
+package com.buddy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Replicas whose replication lag exceeds the limit are skipped until they catch up, and a user
+ * who just wrote keeps reading from the primary for a short window so they see their own changes.
+ * Must sit behind a LazyConnectionDataSourceProxy so the read-only flag is known when the
+ * connection is fetched.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    static final String PRIMARY = "primary";
+    
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long stickyWindowMs;
+    
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicaSources,
+                                    String lagQuery, long maxLagMs, long stickyWindowMs, long checkIntervalMs) {
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.stickyWindowMs = stickyWindowMs;
+        
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicaSources.forEach((name, dataSource) -> {
+            targets.put(name, dataSource);
+            replicas.add(new Replica(name, dataSource));
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        
+        String user = currentUser();
+        if (user != null && wroteRecently(user)) {
+            return PRIMARY; // read-your-writes
+        }
+        
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return PRIMARY;
+    }
+    
+    /**
+     * Pins the user's reads to the primary for the sticky window.
+     */
+    public void recordWrite(String user) {
+        recentWriters.put(user, System.currentTimeMillis());
+    }
+    
+    private boolean wroteRecently(String user) {
+        Long writtenAt = recentWriters.get(user);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < stickyWindowMs;
+    }
+    
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+    
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                long lagMs = rs.next() ? rs.getLong(1) : Long.MAX_VALUE;
+                healthy = lagMs <= maxLagMs;
+                if (!healthy && replica.healthy) {
+                    logger.warn("Replica {} is {} ms behind, routing reads to the primary", replica.name, lagMs);
+                }
+            } catch (Exception e) {
+                healthy = false;
+                if (replica.healthy) {
+                    logger.warn("Replica {} is unreachable: {}", replica.name, e.getMessage());
+                }
+            }
+            if (healthy && !replica.healthy) {
+                logger.info("Replica {} is healthy, routing reads to it", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+        
+        // Keep the sticky map bounded to users who wrote within the window
+        long cutoff = System.currentTimeMillis() - stickyWindowMs;
+        recentWriters.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+    
+    @Override
+    public void destroy() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+    
+    private static class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy;
+        
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.buddy.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+
+/**
+ * Marks the caller as a recent writer after any successful mutating request,
+ * so their follow-up reads are served by the primary.
+ */
+public class ReplicaStickinessInterceptor implements HandlerInterceptor {
+    
+    private final ReplicaRoutingDataSource routingDataSource;
+    
+    public ReplicaStickinessInterceptor(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return;
+        }
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && response.getStatus() < 400) {
+            routingDataSource.recordWrite(principal.getName());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.buddy.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares the live database against the JPA mappings and the indexes the repositories rely on.
+ * Reads the column catalog in a single metadata call and reports every difference at once,
+ * instead of stopping at the first one like Hibernate's validate mode.
+ */
+@Component
+@ConditionalOnProperty(name = "schema.verifier.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaVerifier implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaVerifier.class);
+
+    // Leading columns of the indexes each table needs (see V3__Add_repository_indexes.sql and V4)
+    private static final Map<String, List<List<String>>> REQUIRED_INDEXES = Map.of(
+            "goals", List.of(
+                    List.of("user_id", "status"),
+                    List.of("user_id", "created_at"),
+                    List.of("category")),
+            "buddy_relationships", List.of(
+                    List.of("user1_id", "status"),
+                    List.of("user2_id", "status"),
+                    List.of("goal_id", "status")),
+            "check_ins", List.of(
+                    List.of("user_id", "check_in_date"),
+                    List.of("user_id", "goal_id", "check_in_date")),
+            "user_devices", List.of(
+                    List.of("user_id", "is_active"),
+                    List.of("fcm_token")),
+            "chat_messages", List.of(
+                    List.of("conversation_id", "created_at", "id"))
+    );
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${schema.verifier.fail-on-drift:false}")
+    private boolean failOnDrift;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        Map<String, Set<String>> mappedColumns = collectMappedColumns();
+        List<String> problems = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String schema = connection.getSchema();
+            Map<String, Set<String>> actualColumns = readColumns(metaData, schema);
+
+            mappedColumns.forEach((table, columns) -> {
+                Set<String> existing = actualColumns.get(table);
+                if (existing == null) {
+                    problems.add("missing table " + table);
+                    return;
+                }
+                for (String column : columns) {
+                    if (!existing.contains(column)) {
+                        problems.add("missing column " + table + "." + column);
+                    }
+                }
+            });
+
+            for (Map.Entry<String, List<List<String>>> entry : REQUIRED_INDEXES.entrySet()) {
+                String table = entry.getKey();
+                if (!actualColumns.containsKey(table)) {
+                    continue; // already reported as a missing table
+                }
+                List<List<String>> indexes = readIndexes(metaData, schema, table);
+                for (List<String> required : entry.getValue()) {
+                    boolean covered = indexes.stream().anyMatch(index ->
+                            index.size() >= required.size() && index.subList(0, required.size()).equals(required));
+                    if (!covered) {
+                        problems.add("missing index on " + table + required);
+                    }
+                }
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        if (problems.isEmpty()) {
+            logger.info("Schema verified: {} mapped tables match the database ({} ms)", mappedColumns.size(), elapsedMs);
+            return;
+        }
+
+        problems.forEach(problem -> logger.warn("Schema drift: {}", problem));
+        logger.warn("Schema verification found {} problem(s) in {} ms", problems.size(), elapsedMs);
+        if (failOnDrift) {
+            throw new IllegalStateException("Database schema does not match the entity mappings: " + problems);
+        }
+    }
+
+    private Map<String, Set<String>> collectMappedColumns() {
+        Map<String, Set<String>> mapped = new TreeMap<>();
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(descriptor -> {
+            if (descriptor instanceof AbstractEntityPersister persister) {
+                Set<String> columns = mapped.computeIfAbsent(persister.getTableName().toLowerCase(), t -> new TreeSet<>());
+                addColumns(columns, persister.getIdentifierColumnNames());
+                String[] propertyNames = persister.getPropertyNames();
+                Type[] propertyTypes = persister.getPropertyTypes();
+                for (int i = 0; i < propertyNames.length; i++) {
+                    // Collections live in their own tables and are handled below
+                    if (!propertyTypes[i].isCollectionType()) {
+                        addColumns(columns, persister.getPropertyColumnNames(propertyNames[i]));
+                    }
+                }
+            }
+        });
+
+        sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(descriptor -> {
+            if (descriptor instanceof AbstractCollectionPersister persister) {
+                Set<String> columns = mapped.computeIfAbsent(persister.getTableName().toLowerCase(), t -> new TreeSet<>());
+                addColumns(columns, persister.getKeyColumnNames());
+                addColumns(columns, persister.getElementColumnNames());
+            }
+        });
+
+        return mapped;
+    }
+
+    private void addColumns(Set<String> columns, String[] names) {
+        for (String name : names) {
+            if (name != null) {
+                columns.add(name.toLowerCase());
+            }
+        }
+    }
+
+    private Map<String, Set<String>> readColumns(DatabaseMetaData metaData, String schema) throws SQLException {
+        Map<String, Set<String>> columns = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(null, schema, "%", "%")) {
+            while (rs.next()) {
+                columns.computeIfAbsent(rs.getString("TABLE_NAME").toLowerCase(), t -> new TreeSet<>())
+                        .add(rs.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+        return columns;
+    }
+
+    private List<List<String>> readIndexes(DatabaseMetaData metaData, String schema, String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> indexes = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, schema, table, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue;
+                }
+                indexes.computeIfAbsent(indexName, n -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), columnName.toLowerCase());
+            }
+        }
+        return indexes.values().stream()
+                .map(positions -> (List<String>) new ArrayList<>(positions.values()))
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.buddy.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Builds the Caffeine-backed JCache regions used by Hibernate's second-level and query caches
+ * from the cache.l2.regions settings, and hands the CacheManager to Hibernate.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheConfig.class);
+    
+    public record RegionSettings(Long maxEntries, Duration ttl) {}
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        
+        Map<String, RegionSettings> regions = Binder.get(environment)
+                .bind("cache.l2.regions", Bindable.mapOf(String.class, RegionSettings.class))
+                .orElse(Map.of());
+        
+        regions.forEach((region, settings) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            if (settings.maxEntries() != null) {
+                configuration.setMaximumSize(OptionalLong.of(settings.maxEntries()));
+            }
+            if (settings.ttl() != null) {
+                configuration.setExpireAfterWrite(OptionalLong.of(settings.ttl().toNanos()));
+            }
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+            logger.info("Second-level cache region '{}' (max {}, ttl {})", region, settings.maxEntries(), settings.ttl());
+        });
+        
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+}
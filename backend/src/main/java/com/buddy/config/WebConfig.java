@@ -0,0 +1,37 @@
+package com.buddy.config;
+
+import com.buddy.metrics.HandlerTagInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private HandlerTagInterceptor handlerTagInterceptor;
+    
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    
+    // Replaces Boot's open-in-view registration, which covers every path. The async chat and push
+    // endpoints complete long after the handler returns, and an open EntityManager would hold the
+    // request's database connection for that whole time.
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(handlerTagInterceptor);
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/chat/**", "/push/**");
+        if (replicaRoutingDataSource != null) {
+            registry.addInterceptor(new ReplicaStickinessInterceptor(replicaRoutingDataSource));
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -154,6 +155,7 @@ public class AuthController {
     }
     
     @GetMapping("/me")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getCurrentUser(Authentication authentication) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
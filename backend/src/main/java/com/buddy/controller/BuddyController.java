@@ -7,12 +7,19 @@ import com.buddy.repository.BuddyRelationshipRepository;
 import com.buddy.repository.UserRepository;
 import com.buddy.service.BuddyMatchingService;
 import com.buddy.service.FirebaseMessagingService;
+import com.buddy.service.NotificationDigestScheduler;
+import com.buddy.service.PushHub;
+import com.buddy.service.TopicSubscriptionManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +40,15 @@ public class BuddyController {
     @Autowired(required = false)
     private FirebaseMessagingService firebaseMessagingService;
     
+    @Autowired
+    private PushHub pushHub;
+    
+    @Autowired
+    private NotificationDigestScheduler notificationDigestScheduler;
+    
+    @Autowired
+    private TopicSubscriptionManager topicSubscriptionManager;
+    
     @PostMapping("/request/{goalId}")
     public ResponseEntity<?> requestBuddy(@PathVariable Long goalId, 
                                         Authentication authentication) {
@@ -47,8 +63,16 @@ public class BuddyController {
             String notificationTitle = "New Buddy Request!";
             String notificationBody = String.format("%s wants to be your accountability buddy!", 
                     requester.getFirstName() != null ? requester.getFirstName() : requester.getUsername());
+            notificationDigestScheduler.enqueue(relationship.getUser1().getId(), PushHub.BUDDY_REQUEST,
+                    notificationTitle, notificationBody);
             
-            // Note: You'd need to get the goal owner's FCM tokens and send notification
+            pushHub.publish(relationship.getUser1().getId().toString(), PushHub.BUDDY_REQUEST, Map.of(
+                    "relationshipId", relationship.getId(),
+                    "goalId", relationship.getGoal().getId(),
+                    "fromUserId", requester.getId(),
+                    "title", notificationTitle,
+                    "body", notificationBody
+            ));
             
             return ResponseEntity.ok(Map.of(
                     "message", "Buddy request sent successfully!",
@@ -71,12 +95,23 @@ public class BuddyController {
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
             BuddyRelationship relationship = buddyMatchingService.acceptBuddyRequest(user, relationshipId);
+            topicSubscriptionManager.onRelationshipActive(relationship);
             
             // Send notification to requester
             String notificationTitle = "Buddy Request Accepted! 🎉";
             String notificationBody = String.format("%s accepted your buddy request! Time to start achieving goals together!", 
                     user.getFirstName() != null ? user.getFirstName() : user.getUsername());
             
+            notificationDigestScheduler.enqueue(relationship.getUser2().getId(), PushHub.BUDDY_ACCEPTED,
+                    notificationTitle, notificationBody);
+            pushHub.publish(relationship.getUser2().getId().toString(), PushHub.BUDDY_ACCEPTED, Map.of(
+                    "relationshipId", relationship.getId(),
+                    "goalId", relationship.getGoal().getId(),
+                    "fromUserId", user.getId(),
+                    "title", notificationTitle,
+                    "body", notificationBody
+            ));
+            
             return ResponseEntity.ok(Map.of(
                     "message", "Buddy request accepted!",
                     "relationship", relationship,
@@ -97,7 +132,11 @@ public class BuddyController {
             User user = userRepository.findByUsername(userDetails.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            buddyMatchingService.rejectBuddyRequest(user, relationshipId);
+            BuddyRelationship relationship = buddyMatchingService.rejectBuddyRequest(user, relationshipId);
+            pushHub.publish(relationship.getUser2().getId().toString(), PushHub.BUDDY_REJECTED, Map.of(
+                    "relationshipId", relationshipId,
+                    "goalId", relationship.getGoal().getId()
+            ));
             
             return ResponseEntity.ok(Map.of("message", "Buddy request rejected"));
             
@@ -108,12 +147,21 @@ public class BuddyController {
     }
     
     @GetMapping("/my-buddies")
-    public ResponseEntity<?> getMyBuddies(Authentication authentication) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getMyBuddies(Authentication authentication,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             User user = userRepository.findByUsername(userDetails.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            // One aggregate row instead of the relationships; daysActive moves with the calendar
+            Object[] stamp = buddyRelationshipRepository.findActiveRelationshipsStamp(user).get(0);
+            String etag = HttpCaching.etag("my-buddies", user.getId(), Arrays.toString(stamp), LocalDate.now());
+            if (HttpCaching.matches(ifNoneMatch, etag)) {
+                return HttpCaching.notModified(etag, HttpCaching.PRIVATE_REVALIDATE);
+            }
+            
             List<BuddyRelationship> relationships = buddyMatchingService.getUserBuddies(user);
             
             // Transform to include buddy info and goal details
@@ -137,10 +185,13 @@ public class BuddyController {
                     })
                     .toList();
             
-            return ResponseEntity.ok(Map.of(
-                    "buddies", buddiesData,
-                    "totalBuddies", buddiesData.size()
-            ));
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(HttpCaching.PRIVATE_REVALIDATE)
+                    .body(Map.of(
+                            "buddies", buddiesData,
+                            "totalBuddies", buddiesData.size()
+                    ));
             
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -149,6 +200,7 @@ public class BuddyController {
     }
     
     @GetMapping("/pending-requests")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getPendingRequests(Authentication authentication) {
         try {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
@@ -188,6 +240,7 @@ public class BuddyController {
     }
     
     @GetMapping("/recommendations")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getBuddyRecommendations(Authentication authentication) {
         try {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
@@ -249,6 +302,7 @@ public class BuddyController {
                         .body(Map.of("error", "You are not part of this buddy relationship"));
             }
             
+            boolean wasActive = relationship.getStatus() == BuddyRelationship.RelationshipStatus.ACTIVE;
             relationship.setStatus(BuddyRelationship.RelationshipStatus.ENDED);
             relationship.setEndedAt(java.time.LocalDateTime.now());
             if (reason.get("reason") != null) {
@@ -256,6 +310,9 @@ public class BuddyController {
             }
             
             buddyRelationshipRepository.save(relationship);
+            if (wasActive) {
+                topicSubscriptionManager.onRelationshipEnded(relationship);
+            }
             
             return ResponseEntity.ok(Map.of("message", "Buddy relationship ended"));
             
@@ -3,55 +3,86 @@ package com.buddy.controller;
 import com.buddy.model.ChatMessage;
 import com.buddy.model.User;
 import com.buddy.repository.UserRepository;
-import com.buddy.service.FirestoreService;
+import com.buddy.service.ChatStore;
+import com.buddy.service.NotificationDigestScheduler;
+import com.buddy.service.PushHub;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Chat endpoints over the configured ChatStore. Store calls return CompletableFutures, so the
+ * servlet thread is released while a Firestore RPC or a batched Postgres write is in flight
+ * and the response is written from an async dispatch. /chat is left out of open-in-view
+ * (WebConfig), so the repository reads here release their connection before the store call.
+ */
 @RestController
 @RequestMapping("/chat")
 @CrossOrigin(origins = "*")
 public class ChatController {
     
-    @Autowired(required = false)
-    private FirestoreService firestoreService;
+    private static final List<String> MESSAGE_TYPES = List.of("text", "image", "file");
+    
+    @Autowired
+    private ChatStore chatStore;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private PushHub pushHub;
+    
+    @Autowired
+    private NotificationDigestScheduler notificationDigestScheduler;
+    
+    @Value("${chat.history.default-page-size:30}")
+    private int defaultPageSize;
+    
+    @Value("${chat.history.max-page-size:100}")
+    private int maxPageSize;
+    
     @PostMapping("/send")
-    public ResponseEntity<?> sendMessage(@RequestBody Map<String, String> request,
-                                       Authentication authentication) {
+    public CompletableFuture<ResponseEntity<?>> sendMessage(@RequestBody Map<String, String> request,
+                                                            Authentication authentication) {
         try {
-            if (firestoreService == null) {
-                return ResponseEntity.ok(Map.of(
-                    "message", "Chat functionality requires Firebase setup",
-                    "status", "firebase_not_configured"
-                ));
-            }
-            
             String content = request.get("content");
             String receiverId = request.get("receiverId");
             String type = request.get("type") != null ? request.get("type") : "text";
             
             if (content == null || receiverId == null) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Content and receiverId are required"));
+                return completed(ResponseEntity.badRequest()
+                        .body(Map.of("error", "Content and receiverId are required")));
+            }
+            if (!MESSAGE_TYPES.contains(type)) {
+                return completed(ResponseEntity.badRequest()
+                        .body(Map.of("error", "type must be one of " + String.join(", ", MESSAGE_TYPES))));
             }
             
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            User sender = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Sender not found"));
+            User sender = currentUser(authentication);
             
-            // Verify receiver exists
-            User receiver = userRepository.findById(Long.parseLong(receiverId))
-                    .orElseThrow(() -> new RuntimeException("Receiver not found"));
+            if (sender.getId().toString().equals(receiverId)) {
+                return completed(ResponseEntity.badRequest()
+                        .body(Map.of("error", "Cannot send a message to yourself")));
+            }
+            
+            // Verify receiver exists; a short read of its own, finished before the store call
+            Long receiverUserId = Long.parseLong(receiverId);
+            if (!userRepository.existsById(receiverUserId)) {
+                throw new RuntimeException("Receiver not found");
+            }
             
             ChatMessage message = new ChatMessage(
                     sender.getId().toString(),
@@ -61,91 +92,130 @@ public class ChatController {
                     type
             );
             
-            String messageId = firestoreService.saveChatMessage(message);
-            
-            return ResponseEntity.ok(Map.of(
-                    "messageId", messageId,
-                    "message", "Message sent successfully"
-            ));
+            return chatStore.save(message)
+                    .<ResponseEntity<?>>thenApply(messageId -> {
+                        message.setId(messageId);
+                        pushHub.publish(receiverId, PushHub.CHAT_MESSAGE, message);
+                        notificationDigestScheduler.enqueue(receiverUserId, PushHub.CHAT_MESSAGE,
+                                message.getSenderName(), preview(content));
+                        return ResponseEntity.ok(Map.of(
+                                "messageId", messageId,
+                                "message", "Message sent successfully"
+                        ));
+                    })
+                    .exceptionally(e -> failure("send message", e));
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Failed to send message: " + e.getMessage()));
+            return completed(failure("send message", e));
         }
     }
     
     @GetMapping("/history/{receiverId}")
-    public ResponseEntity<?> getChatHistory(@PathVariable String receiverId,
-                                          Authentication authentication) {
+    public CompletableFuture<ResponseEntity<?>> getChatHistory(@PathVariable String receiverId,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               @RequestParam(required = false) String before,
+                                                               Authentication authentication) {
         try {
-            if (firestoreService == null) {
-                return ResponseEntity.ok(Map.of(
-                    "messages", Collections.emptyList(),
-                    "status", "firebase_not_configured"
-                ));
-            }
-            
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            User sender = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User sender = currentUser(authentication);
             
-            List<ChatMessage> messages = firestoreService.getChatHistory(
-                    sender.getId().toString(), receiverId);
+            int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
             
-            return ResponseEntity.ok(messages);
+            return chatStore.history(sender.getId().toString(), receiverId, pageSize, before)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> failure("get chat history", e));
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Failed to get chat history: " + e.getMessage()));
+            return completed(failure("get chat history", e));
         }
     }
     
     @GetMapping("/unread")
-    public ResponseEntity<?> getUnreadMessages(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<?>> getUnreadMessages(Authentication authentication) {
         try {
-            if (firestoreService == null) {
-                return ResponseEntity.ok(Map.of(
-                    "unreadCount", 0,
-                    "messages", Collections.emptyList(),
-                    "status", "firebase_not_configured"
-                ));
-            }
-            
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = currentUser(authentication);
             
-            List<ChatMessage> messages = firestoreService.getUnreadMessages(
-                    user.getId().toString());
-            
-            return ResponseEntity.ok(Map.of(
-                    "unreadCount", messages.size(),
-                    "messages", messages
-            ));
+            // Counters only; messages are loaded through /history when a conversation is opened
+            return chatStore.unreadCounts(user.getId().toString())
+                    .<ResponseEntity<?>>thenApply(counts -> ResponseEntity.ok(Map.of(
+                            "unreadCount", counts.values().stream().mapToLong(Long::longValue).sum(),
+                            "conversations", counts
+                    )))
+                    .exceptionally(e -> failure("get unread messages", e));
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Failed to get unread messages: " + e.getMessage()));
+            return completed(failure("get unread messages", e));
         }
     }
     
     @PutMapping("/read/{messageId}")
-    public ResponseEntity<?> markMessageAsRead(@PathVariable String messageId) {
+    public CompletableFuture<ResponseEntity<?>> markMessageAsRead(@PathVariable String messageId,
+                                                                  Authentication authentication) {
         try {
-            if (firestoreService == null) {
-                return ResponseEntity.ok(Map.of(
-                    "message", "Message read status requires Firebase setup",
-                    "status", "firebase_not_configured"
-                ));
-            }
+            User user = currentUser(authentication);
+            
+            return chatStore.markRead(user.getId().toString(), messageId)
+                    .<ResponseEntity<?>>thenApply(v -> ResponseEntity.ok(Map.of("message", "Message marked as read")))
+                    .exceptionally(e -> failure("mark message as read", e));
             
-            firestoreService.markMessageAsRead(messageId);
+        } catch (Exception e) {
+            return completed(failure("mark message as read", e));
+        }
+    }
+    
+    // Marks everything received from otherUserId up to "upTo" (ISO-8601, default now) as read.
+    // Clients send the timestamp of the newest message on screen when a conversation is opened.
+    @PutMapping("/conversations/{otherUserId}/read")
+    public CompletableFuture<ResponseEntity<?>> markConversationAsRead(@PathVariable String otherUserId,
+                                                                       @RequestBody(required = false) Map<String, String> request,
+                                                                       Authentication authentication) {
+        try {
+            User user = currentUser(authentication);
+            String upToValue = request != null ? request.get("upTo") : null;
+            Instant upTo = upToValue != null ? Instant.parse(upToValue) : Instant.now();
             
-            return ResponseEntity.ok(Map.of("message", "Message marked as read"));
+            return chatStore.markConversationRead(user.getId().toString(), otherUserId, upTo)
+                    .<ResponseEntity<?>>thenApply(marked -> ResponseEntity.ok(Map.of(
+                            "message", "Conversation marked as read",
+                            "marked", marked
+                    )))
+                    .exceptionally(e -> failure("mark conversation as read", e));
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Failed to mark message as read: " + e.getMessage()));
+            return completed(failure("mark conversation as read", e));
+        }
+    }
+    
+    // The JWT filter already loaded the user; reuse it so no query runs inside the async request
+    private User currentUser(Authentication authentication) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return userDetails instanceof User loaded ? loaded
+                : userRepository.findByUsername(userDetails.getUsername())
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
+    private static String preview(String content) {
+        return content.length() <= 120 ? content : content.substring(0, 117) + "...";
+    }
+    
+    private static CompletableFuture<ResponseEntity<?>> completed(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+    
+    private static ResponseEntity<?> failure(String action, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Chat is busy, please retry: " + cause.getMessage()));
+        }
+        if (cause instanceof AccessDeniedException) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", cause.getMessage()));
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "Timed out trying to " + action));
         }
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Failed to " + action + ": " + cause.getMessage()));
     }
-} 
\ No newline at end of file
+}
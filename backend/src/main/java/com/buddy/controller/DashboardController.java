@@ -0,0 +1,43 @@
+package com.buddy.controller;
+
+import com.buddy.model.User;
+import com.buddy.repository.UserRepository;
+import com.buddy.service.DashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/dashboard")
+@CrossOrigin(origins = "*")
+public class DashboardController {
+    
+    @Autowired
+    private DashboardService dashboardService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    // Replaces the separate /goals, /goals/active, /buddies/my-buddies,
+    // /buddies/pending-requests and /chat/unread calls the home screen makes on launch
+    @GetMapping
+    public ResponseEntity<?> getDashboard(Authentication authentication) {
+        try {
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            // The JWT filter already loaded the user; reuse it instead of querying again
+            User user = userDetails instanceof User loaded ? loaded
+                    : userRepository.findByUsername(userDetails.getUsername())
+                            .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            return ResponseEntity.ok(dashboardService.buildDashboard(user));
+            
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(Map.of("error", "Unable to load dashboard: " + e.getMessage()));
+        }
+    }
+}
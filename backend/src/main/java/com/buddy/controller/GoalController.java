@@ -5,20 +5,28 @@ import com.buddy.model.User;
 import com.buddy.repository.GoalRepository;
 import com.buddy.repository.UserRepository;
 import com.buddy.service.BuddyMatchingService;
+import com.buddy.service.TopicSubscriptionManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import jakarta.validation.Validator;
 import jakarta.validation.ConstraintViolation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,19 +50,19 @@ public class GoalController {
     @Autowired
     private Validator validator;
     
+    @Autowired
+    private TopicSubscriptionManager topicSubscriptionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private byte[] categoriesBody;
+    private String categoriesEtag;
+    
     @PostMapping
     public ResponseEntity<?> createGoal(@RequestBody Map<String, Object> goalRequest,
                                        Authentication authentication) {
         try {
-            // Check authentication first
-            logger.debug("Creating goal - Authentication check: {}", authentication != null ? "present" : "null");
-            if (authentication != null) {
-                logger.debug("Authentication details - Name: {}, Authenticated: {}, Principal type: {}", 
-                    authentication.getName(), 
-                    authentication.isAuthenticated(),
-                    authentication.getPrincipal().getClass().getSimpleName());
-            }
-            
             if (authentication == null || !authentication.isAuthenticated()) {
                 logger.warn("Goal creation failed - Authentication missing or invalid");
                 return ResponseEntity.status(401)
@@ -205,6 +213,7 @@ public class GoalController {
     }
     
     @GetMapping
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getUserGoals(Authentication authentication) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
@@ -235,7 +244,9 @@ public class GoalController {
     }
     
     @GetMapping("/{goalId}")
-    public ResponseEntity<?> getGoal(@PathVariable Long goalId, Authentication authentication) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getGoal(@PathVariable Long goalId, Authentication authentication,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
                 return ResponseEntity.badRequest()
@@ -259,7 +270,16 @@ public class GoalController {
                         .body(Map.of("error", "You don't have permission to access this goal"));
             }
             
-            return ResponseEntity.ok(createGoalResponse(goal));
+            // daysRemaining and isOverdue move with the calendar, so the date is part of the stamp
+            String etag = HttpCaching.etag("goal", goal.getId(), goal.getUpdatedAt(), LocalDate.now());
+            if (HttpCaching.matches(ifNoneMatch, etag)) {
+                return HttpCaching.notModified(etag, HttpCaching.PRIVATE_REVALIDATE);
+            }
+            
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(HttpCaching.PRIVATE_REVALIDATE)
+                    .body(createGoalResponse(goal));
             
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -468,6 +488,12 @@ public class GoalController {
                 
                 Goal updatedGoal = goalRepository.save(goal);
                 
+                // One topic send reaches every buddy following the goal
+                String name = user.getFirstName() != null ? user.getFirstName() : user.getUsername();
+                topicSubscriptionManager.publish(TopicSubscriptionManager.goalTopic(goalId),
+                        updatedGoal.getStatus() == Goal.GoalStatus.COMPLETED ? "Goal completed! 🏆" : "Progress update",
+                        String.format("%s is at %d%% on \"%s\"", name, newProgress, updatedGoal.getTitle()));
+                
                 Map<String, Object> response = createGoalResponse(updatedGoal);
                 response.put("message", "Progress updated successfully!");
                 response.put("isCompleted", updatedGoal.getStatus() == Goal.GoalStatus.COMPLETED);
@@ -484,28 +510,33 @@ public class GoalController {
         }
     }
     
+    // The enum lists only change with a deployment, so the body and its ETag are built once
+    @PostConstruct
+    public void precomputeCategories() throws JsonProcessingException {
+        Map<String, Object> categories = new LinkedHashMap<>();
+        categories.put("categories", Goal.GoalCategory.values());
+        categories.put("types", Goal.GoalType.values());
+        categories.put("difficulties", Goal.DifficultyLevel.values());
+        categories.put("statuses", Goal.GoalStatus.values());
+        categoriesBody = objectMapper.writeValueAsBytes(categories);
+        categoriesEtag = HttpCaching.etagOf(categoriesBody);
+    }
+    
     @GetMapping("/categories")
-    public ResponseEntity<?> getGoalCategories() {
-        try {
-            Goal.GoalCategory[] categories = Goal.GoalCategory.values();
-            Goal.GoalType[] types = Goal.GoalType.values();
-            Goal.DifficultyLevel[] difficulties = Goal.DifficultyLevel.values();
-            Goal.GoalStatus[] statuses = Goal.GoalStatus.values();
-            
-            return ResponseEntity.ok(Map.of(
-                    "categories", categories,
-                    "types", types,
-                    "difficulties", difficulties,
-                    "statuses", statuses
-            ));
-            
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Failed to get categories: " + e.getMessage()));
+    public ResponseEntity<?> getGoalCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (HttpCaching.matches(ifNoneMatch, categoriesEtag)) {
+            return HttpCaching.notModified(categoriesEtag, HttpCaching.STATIC);
         }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(categoriesEtag)
+                .cacheControl(HttpCaching.STATIC)
+                .body(categoriesBody);
     }
     
     @GetMapping("/active")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getActiveGoals(Authentication authentication) {
         try {
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
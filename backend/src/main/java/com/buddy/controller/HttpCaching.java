@@ -0,0 +1,60 @@
+package com.buddy.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.StringJoiner;
+
+/**
+ * Cache-Control policies per route and strong ETags built from the version stamps (ids,
+ * updatedAt) behind a response, so a conditional GET can be answered with 304 before the
+ * body is assembled.
+ */
+final class HttpCaching {
+
+    /** Reference data that only changes with a deployment: GET /goals/categories. */
+    static final CacheControl STATIC = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+
+    /** Per-user data: clients may keep a copy but must revalidate it with If-None-Match every time. */
+    static final CacheControl PRIVATE_REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private HttpCaching() {}
+
+    static String etag(Object... stamps) {
+        StringJoiner joined = new StringJoiner("|");
+        for (Object stamp : stamps) {
+            joined.add(String.valueOf(stamp));
+        }
+        return etagOf(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String etagOf(byte[] content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    /** True when an If-None-Match header lists this ETag (or is "*"). */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison, so W/"x" matches "x"
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ResponseEntity<?> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+}
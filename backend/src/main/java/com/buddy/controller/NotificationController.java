@@ -4,13 +4,23 @@ import com.buddy.model.User;
 import com.buddy.model.UserDevice;
 import com.buddy.repository.UserRepository;
 import com.buddy.repository.UserDeviceRepository;
+import com.buddy.service.DeviceRegistry;
 import com.buddy.service.FirebaseMessagingService;
+import com.buddy.service.NotificationDispatcher;
+import com.buddy.service.TokenHealthTracker;
+import com.buddy.service.TopicSubscriptionManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DateTimeException;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -27,6 +37,18 @@ public class NotificationController {
     @Autowired
     private UserDeviceRepository userDeviceRepository;
     
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+    
+    @Autowired
+    private TokenHealthTracker tokenHealthTracker;
+    
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+    
+    @Autowired
+    private TopicSubscriptionManager topicSubscriptionManager;
+    
     @PostMapping("/register-token")
     public ResponseEntity<?> registerFCMToken(@RequestBody Map<String, String> request, 
                                              Authentication authentication) {
@@ -45,12 +67,17 @@ public class NotificationController {
             User user = userRepository.findByUsername(userDetails.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            // A re-registered token is live again, even if FCM reported it dead earlier
+            tokenHealthTracker.markAlive(fcmToken);
+            
             // Check if device already exists
             UserDevice existingDevice = userDeviceRepository.findByFcmToken(fcmToken)
                     .orElse(null);
             
+            User previousOwner = null;
             if (existingDevice != null) {
-                // Update existing device
+                // Update existing device; the token may be moving over from another account
+                previousOwner = existingDevice.getUser();
                 existingDevice.setUser(user);
                 existingDevice.setDeviceType(deviceType);
                 existingDevice.setDeviceName(deviceName);
@@ -64,6 +91,14 @@ public class NotificationController {
                 userDevice.setAppVersion(appVersion);
                 userDeviceRepository.save(userDevice);
             }
+            deviceRegistry.invalidate(user.getId());
+            if (previousOwner != null && !previousOwner.getId().equals(user.getId())) {
+                deviceRegistry.invalidate(previousOwner.getId());
+                // Leave the previous account's topics, or this device keeps receiving its buddies' pushes
+                topicSubscriptionManager.onDeviceUnregistered(previousOwner, fcmToken);
+            }
+            // Join the user's goal and buddy-group topics
+            topicSubscriptionManager.onDeviceRegistered(user, fcmToken);
             
             return ResponseEntity.ok(Map.of("message", "FCM token registered successfully"));
             
@@ -77,13 +112,6 @@ public class NotificationController {
     public ResponseEntity<?> sendNotification(@RequestBody Map<String, Object> request,
                                             Authentication authentication) {
         try {
-            if (firebaseMessagingService == null) {
-                return ResponseEntity.ok(Map.of(
-                    "message", "Push notifications require Firebase setup",
-                    "status", "firebase_not_configured"
-                ));
-            }
-            
             String title = (String) request.get("title");
             String body = (String) request.get("body");
             String targetUsername = (String) request.get("targetUsername");
@@ -94,31 +122,105 @@ public class NotificationController {
             }
             
             if (targetUsername != null) {
-                // Send to specific user
+                // Send to specific user; delivery happens in the background
                 User targetUser = userRepository.findByUsername(targetUsername)
                         .orElseThrow(() -> new RuntimeException("Target user not found"));
                 
-                var activeDevices = userDeviceRepository.findByUserAndIsActive(targetUser, true);
-                
-                for (UserDevice device : activeDevices) {
-                    firebaseMessagingService.sendNotificationToToken(
-                            device.getFcmToken(), title, body);
-                }
+                int queued = notificationDispatcher.dispatchToUser(targetUser, title, body, Map.of());
                 
+                return ResponseEntity.accepted().body(Map.of(
+                        "message", "Notification queued for " + queued + " devices",
+                        "queued", queued));
+            }
+            
+            // A broadcast reaches every device, so only admins may send one; the rate limit still applies on top
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+            if (!admin) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Only admins can broadcast notifications"));
+            }
+            
+            if (firebaseMessagingService == null) {
                 return ResponseEntity.ok(Map.of(
-                        "message", "Notification sent to " + activeDevices.size() + " devices"));
-            } else {
-                // Send to all users (broadcast)
-                firebaseMessagingService.sendNotificationToTopic("all_users", title, body);
-                return ResponseEntity.ok(Map.of("message", "Broadcast notification sent"));
+                    "message", "Push notifications require Firebase setup",
+                    "status", "firebase_not_configured"
+                ));
             }
             
+            // Send to all users (broadcast)
+            firebaseMessagingService.sendNotificationToTopic("all_users", title, body);
+            return ResponseEntity.ok(Map.of("message", "Broadcast notification sent"));
+            
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Failed to send notification: " + e.getMessage()));
         }
     }
     
+    @GetMapping("/preferences")
+    public ResponseEntity<?> getPreferences(Authentication authentication) {
+        try {
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            User user = userRepository.findByUsername(userDetails.getUsername())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            return ResponseEntity.ok(preferences(user));
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to load notification preferences: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Body: {"timeZone": "Europe/Berlin", "quietHoursStart": "22:00", "quietHoursEnd": "07:00"}.
+     * Pushes falling inside quiet hours are held until they end; null start/end turns them off.
+     */
+    @PutMapping("/preferences")
+    public ResponseEntity<?> updatePreferences(@RequestBody Map<String, String> request,
+                                               Authentication authentication) {
+        try {
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            User user = userRepository.findByUsername(userDetails.getUsername())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            if (request.containsKey("timeZone")) {
+                String timeZone = request.get("timeZone");
+                user.setTimeZone(timeZone == null ? null : ZoneId.of(timeZone).getId());
+            }
+            if (request.containsKey("quietHoursStart") || request.containsKey("quietHoursEnd")) {
+                String start = request.get("quietHoursStart");
+                String end = request.get("quietHoursEnd");
+                if ((start == null) != (end == null)) {
+                    return ResponseEntity.badRequest()
+                            .body(Map.of("error", "quietHoursStart and quietHoursEnd must be set together"));
+                }
+                user.setQuietHoursStart(start == null ? null : LocalTime.parse(start));
+                user.setQuietHoursEnd(end == null ? null : LocalTime.parse(end));
+            }
+            userRepository.save(user);
+            
+            return ResponseEntity.ok(preferences(user));
+            
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid time zone or time: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to update notification preferences: " + e.getMessage()));
+        }
+    }
+    
+    private Map<String, Object> preferences(User user) {
+        // HashMap because unset values are null
+        Map<String, Object> preferences = new HashMap<>();
+        preferences.put("timeZone", user.getTimeZone());
+        preferences.put("quietHoursStart", user.getQuietHoursStart());
+        preferences.put("quietHoursEnd", user.getQuietHoursEnd());
+        return preferences;
+    }
+    
     @PostMapping("/subscribe-topic")
     public ResponseEntity<?> subscribeToTopic(@RequestBody Map<String, String> request,
                                             Authentication authentication) {
@@ -131,15 +233,21 @@ public class NotificationController {
             }
             
             String topic = request.get("topic");
+            if (topic == null || topic.trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Topic is required"));
+            }
+            // Goal and buddy-group topics follow buddy relationships and are managed by the server only
+            if (TopicSubscriptionManager.isManagedTopic(topic)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Topic " + topic + " cannot be subscribed to directly"));
+            }
             
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
             User user = userRepository.findByUsername(userDetails.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            var activeDevices = userDeviceRepository.findByUserAndIsActive(user, true);
-            var tokens = activeDevices.stream()
-                    .map(UserDevice::getFcmToken)
-                    .toList();
+            var tokens = List.of(deviceRegistry.tokensFor(user.getId()));
             
             if (!tokens.isEmpty()) {
                 firebaseMessagingService.subscribeToTopic(tokens, topic);
@@ -172,6 +280,8 @@ public class NotificationController {
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
             userDeviceRepository.deleteByUserAndFcmToken(user, fcmToken);
+            deviceRegistry.invalidate(user.getId());
+            topicSubscriptionManager.onDeviceUnregistered(user, fcmToken);
             
             return ResponseEntity.ok(Map.of("message", "FCM token unregistered successfully"));
             
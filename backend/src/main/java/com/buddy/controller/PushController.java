@@ -0,0 +1,51 @@
+package com.buddy.controller;
+
+import com.buddy.model.User;
+import com.buddy.repository.UserRepository;
+import com.buddy.service.PushHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/push")
+@CrossOrigin(origins = "*")
+public class PushController {
+    
+    @Autowired
+    private PushHub pushHub;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    // Server-sent event stream replacing polling of /chat/unread and /buddies/pending-requests.
+    // Events: ready, chat.message, buddy.request, buddy.accepted, buddy.rejected,
+    // checkin.validation-request, and resync (reload over REST after falling behind).
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(Authentication authentication) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        User user = userDetails instanceof User loaded ? loaded
+                : userRepository.findByUsername(userDetails.getUsername())
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        try {
+            SseEmitter emitter = pushHub.connect(user.getId().toString());
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .build();
+        }
+    }
+}
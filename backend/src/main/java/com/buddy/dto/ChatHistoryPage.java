@@ -0,0 +1,46 @@
+package com.buddy.dto;
+
+import com.buddy.model.ChatMessage;
+
+import java.util.List;
+
+/**
+ * One page of a conversation, newest message first. Pass nextCursor back as "before"
+ * to fetch the next (older) page; it is null once the start of the conversation is reached.
+ */
+public class ChatHistoryPage {
+    private List<ChatMessage> messages;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ChatHistoryPage(List<ChatMessage> messages, String nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters and Setters
+    public List<ChatMessage> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<ChatMessage> messages) {
+        this.messages = messages;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,58 @@
+package com.buddy.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Puts a request id in the MDC for every log line of the request and echoes it in X-Request-Id.
+ * A caller-supplied id is kept when it looks sane. A sample of requests is marked for debug
+ * logging, which SampledDebugFilter lets through even when com.buddy is at INFO.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String REQUEST_ID = "requestId";
+    public static final String USER = "user";
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Value("${request-logging.debug-sample-rate:0}")
+    private double debugSampleRate;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        MDC.put(REQUEST_ID, requestId);
+        if (debugSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < debugSampleRate) {
+            MDC.put(SampledDebugFilter.MDC_KEY, "sampled");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // AuthTokenFilter adds the user and may mark the request for debug logging too
+            MDC.remove(REQUEST_ID);
+            MDC.remove(USER);
+            MDC.remove(SampledDebugFilter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.buddy.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter that enables DEBUG for loggers under loggerPrefix on requests marked in
+ * the MDC (a random sample, or a user listed in request-logging.debug-users), regardless of the
+ * configured level. Everything else falls through to the normal level check.
+ */
+public class SampledDebugFilter extends TurboFilter {
+
+    public static final String MDC_KEY = "debug";
+
+    private String loggerPrefix = "com.buddy";
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.DEBUG || MDC.get(MDC_KEY) == null || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.ACCEPT;
+    }
+}
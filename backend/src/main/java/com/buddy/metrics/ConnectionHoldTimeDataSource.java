@@ -0,0 +1,120 @@
+package com.buddy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each pooled connection is held between getConnection() and close(),
+ * tagged with the controller method that borrowed it. Statements created on the connection
+ * are timed into the current request's QueryStats and traced as buddy.jdbc.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+    
+    public static final String METRIC_NAME = "buddy.db.connection.hold";
+    
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    
+    public ConnectionHoldTimeDataSource(DataSource target, ObjectProvider<MeterRegistry> meterRegistry,
+                                        ObjectProvider<ObservationRegistry> observationRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+    
+    private Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new HoldTimeHandler(connection, RequestHandlerContext.get(), System.nanoTime()));
+    }
+    
+    private void record(String handler, long heldNanos) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        timers.computeIfAbsent(handler, h -> Timer.builder(METRIC_NAME)
+                        .description("Time a JDBC connection is held, by controller method")
+                        .tag("handler", h)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(heldNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private class HoldTimeHandler implements InvocationHandler {
+        
+        private final Connection target;
+        private final String handler;
+        private final long acquiredAt;
+        private boolean closed;
+        
+        HoldTimeHandler(Connection target, String handler, long acquiredAt) {
+            this.target = target;
+            this.handler = handler;
+            this.acquiredAt = acquiredAt;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        record(handler, System.nanoTime() - acquiredAt);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                // prepareStatement/prepareCall take the SQL up front; createStatement passes it to execute
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return TimedStatementHandler.wrap(method.getReturnType(), statement, sql,
+                        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+            }
+            return result;
+        }
+    }
+}
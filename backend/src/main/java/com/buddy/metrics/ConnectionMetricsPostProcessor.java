@@ -0,0 +1,42 @@
+package com.buddy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource so connection hold times are attributed to endpoints.
+ * Runs after the pool has been sized and configured.
+ */
+@Component
+public class ConnectionMetricsPostProcessor implements BeanPostProcessor, Ordered {
+    
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+    
+    public ConnectionMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                          ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                && !(bean instanceof ConnectionHoldTimeDataSource)) {
+            return new ConnectionHoldTimeDataSource(dataSource, meterRegistry, observationRegistry);
+        }
+        return bean;
+    }
+    
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.buddy.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC statements executed and time spent in the database by the current request thread.
+ * Started and finished by QueryStatsFilter; statements run outside a request are not counted.
+ */
+public final class QueryStats {
+
+    // Distinct SQL strings tracked per request; the rest are folded into one entry
+    private static final int MAX_DISTINCT_SQL = 100;
+    private static final String OTHER_SQL = "(other statements)";
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, long[]> bySql = new HashMap<>();
+    private int statements;
+    private long nanos;
+
+    private QueryStats() {}
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /** Stats for the request on this thread, or null outside a request. */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    void record(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        String key = sql != null ? sql : OTHER_SQL;
+        if (!bySql.containsKey(key) && bySql.size() >= MAX_DISTINCT_SQL) {
+            key = OTHER_SQL;
+        }
+        long[] totals = bySql.computeIfAbsent(key, k -> new long[2]);
+        totals[0]++;
+        totals[1] += elapsedNanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    /** The statements with the most total time, as "count x ms: sql". */
+    List<String> slowest(int limit, int maxSqlLength) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(bySql.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[1]).reversed());
+        List<String> slowest = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            String sql = entry.getKey().replaceAll("\\s+", " ").trim();
+            if (sql.length() > maxSqlLength) {
+                sql = sql.substring(0, maxSqlLength) + "...";
+            }
+            slowest.add(String.format("%dx %.1f ms: %s", entry.getValue()[0], entry.getValue()[1] / 1e6, sql));
+        }
+        return slowest;
+    }
+}
@@ -0,0 +1,92 @@
+package com.buddy.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the JDBC statements and database time of each request and records them per controller
+ * method as buddy.http.db.statements and buddy.http.db.time. Requests over the slow thresholds
+ * are logged with the statements that took the most time.
+ *
+ * Work a CompletableFuture handler hands to another thread is not attributed to the request.
+ */
+@Component
+// Inside RequestLogFilter, so the slow-request log carries the request id
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatsFilter.class);
+
+    private static final int SLOW_LOG_STATEMENTS = 5;
+    private static final int SLOW_LOG_SQL_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${request-metrics.slow-request-ms:1000}")
+    private long slowRequestMs;
+
+    @Value("${request-metrics.slow-statement-count:50}")
+    private int slowStatementCount;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        QueryStats stats = QueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats.end();
+            record(request, stats, System.nanoTime() - start);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats, long elapsedNanos) {
+        String handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE)
+                instanceof HandlerMethod handlerMethod
+                ? HandlerTagInterceptor.handlerName(handlerMethod)
+                : RequestHandlerContext.NONE;
+
+        DistributionSummary.builder("buddy.http.db.statements")
+                .description("JDBC statements executed per request, by controller method")
+                .baseUnit("statements")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.statements());
+        Timer.builder("buddy.http.db.time")
+                .description("Time spent executing JDBC statements per request, by controller method")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+
+        long elapsedMs = elapsedNanos / 1_000_000;
+        if (elapsedMs >= slowRequestMs || stats.statements() >= slowStatementCount) {
+            logger.warn("Slow request {} {} ({}): {} ms, {} statements, {} ms in the database; top statements: {}",
+                    request.getMethod(), request.getRequestURI(), handler, elapsedMs, stats.statements(),
+                    stats.nanos() / 1_000_000, stats.slowest(SLOW_LOG_STATEMENTS, SLOW_LOG_SQL_LENGTH));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.buddy.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Adds a Server-Timing header with the request's statement count and database time so far,
+ * e.g. {@code db;desc="12 statements";dur=8.4}. Set just before the body is written, so
+ * lazy loading during serialization is not included. Disabled in prod.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "request-metrics.response-header", havingValue = "true")
+public class QueryStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            response.getHeaders().add("Server-Timing", String.format(Locale.ROOT,
+                    "db;desc=\"%d statements\";dur=%.1f", stats.statements(), stats.nanos() / 1e6));
+        }
+        return body;
+    }
+}
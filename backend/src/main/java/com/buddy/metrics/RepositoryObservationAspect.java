@@ -0,0 +1,63 @@
+package com.buddy.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Observes every call on our Spring Data repositories as buddy.repository, tagged with e.g.
+ * "GoalRepository.findByUserAndStatus", so traces show which repository method issued which
+ * buddy.jdbc statements. Calls outside a traced operation are passed straight through.
+ */
+@Aspect
+@Component
+public class RepositoryObservationAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.buddy.repository.";
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public RepositoryObservationAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (observationRegistry.getCurrentObservation() == null) {
+            return joinPoint.proceed();
+        }
+        String name = repositoryName(joinPoint.getThis()) + "." + joinPoint.getSignature().getName();
+        Observation observation = Observation.createNotStarted("buddy.repository", observationRegistry)
+                .contextualName(name)
+                .lowCardinalityKeyValue("method", name)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    // Inherited methods such as findById are declared on CrudRepository, so name the proxied interface instead
+    private String repositoryName(Object repository) {
+        return repositoryNames.computeIfAbsent(repository.getClass(), type -> {
+            for (Class<?> candidate : AopProxyUtils.proxiedUserInterfaces(repository)) {
+                if (candidate.getName().startsWith(REPOSITORY_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.buddy.metrics;
+
+/**
+ * Holds the name of the controller method serving the current request thread,
+ * e.g. "GoalController.getUserGoals", so lower layers can tag their metrics with it.
+ */
+public final class RequestHandlerContext {
+    
+    public static final String NONE = "none";
+    
+    private static final ThreadLocal<String> CURRENT_HANDLER = new ThreadLocal<>();
+    
+    private RequestHandlerContext() {}
+    
+    public static void set(String handler) {
+        CURRENT_HANDLER.set(handler);
+    }
+    
+    public static String get() {
+        String handler = CURRENT_HANDLER.get();
+        return handler != null ? handler : NONE;
+    }
+    
+    public static void clear() {
+        CURRENT_HANDLER.remove();
+    }
+}
@@ -0,0 +1,61 @@
+package com.buddy.metrics;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-region hit rates for the Hibernate second-level and query caches at /actuator/l2cache.
+ * The same counters are published to /actuator/metrics as hibernate.second.level.cache.requests.
+ */
+@Component
+@Endpoint(id = "l2cache")
+public class SecondLevelCacheEndpoint {
+    
+    private final EntityManagerFactory entityManagerFactory;
+    
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+    
+    @ReadOperation
+    public Map<String, Object> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            regions.put(regionName, describe(region.getHitCount(), region.getMissCount(),
+                    region.getPutCount(), region.getElementCountInMemory()));
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("regions", regions);
+        result.put("queryCache", describe(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(), -1));
+        return result;
+    }
+    
+    private Map<String, Object> describe(long hits, long misses, long puts, long size) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("hits", hits);
+        data.put("misses", misses);
+        data.put("puts", puts);
+        data.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        if (size >= 0) {
+            data.put("size", size);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,121 @@
+package com.buddy.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Times the execute* calls of a JDBC statement into the current request's QueryStats. Inside a
+ * traced operation each execution is also observed as buddy.jdbc, which becomes a child span.
+ */
+class TimedStatementHandler implements InvocationHandler {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> OPERATIONS = Set.of("select", "insert", "update", "delete", "with");
+    private static final int MAX_SPAN_SQL_LENGTH = 1000;
+
+    private final Statement target;
+    private final String sql;
+    private final ObservationRegistry observationRegistry;
+
+    private TimedStatementHandler(Statement target, String sql, ObservationRegistry observationRegistry) {
+        this.target = target;
+        this.sql = sql;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /** Wraps a statement returned by a Connection factory method; sql is null for plain Statements. */
+    static Object wrap(Class<?> statementType, Statement target, String sql, ObservationRegistry observationRegistry) {
+        return Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[] { statementType },
+                new TimedStatementHandler(target, sql, observationRegistry));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (!EXECUTE_METHODS.contains(method.getName())) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        String executed = sql;
+        if (executed == null && args != null && args.length > 0 && args[0] instanceof String text) {
+            executed = text;
+        }
+        QueryStats stats = QueryStats.current();
+        // Statements outside a traced operation (startup, background threads) get no span of their own
+        Observation observation = observationRegistry.getCurrentObservation() != null
+                ? observe(method.getName(), executed)
+                : null;
+        long start = System.nanoTime();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (observation != null) {
+                observation.error(e.getTargetException());
+            }
+            throw e.getTargetException();
+        } finally {
+            if (stats != null) {
+                stats.record(executed, System.nanoTime() - start);
+            }
+            if (observation != null) {
+                observation.stop();
+            }
+        }
+    }
+
+    private Observation observe(String methodName, String executed) {
+        String operation = operation(methodName, executed);
+        Observation observation = Observation.createNotStarted("buddy.jdbc", observationRegistry)
+                .contextualName("jdbc " + operation)
+                .lowCardinalityKeyValue("operation", operation);
+        if (executed != null) {
+            observation.highCardinalityKeyValue("db.statement", executed.length() > MAX_SPAN_SQL_LENGTH
+                    ? executed.substring(0, MAX_SPAN_SQL_LENGTH) + "..." : executed);
+        }
+        return observation.start();
+    }
+
+    private static String operation(String methodName, String executed) {
+        if (methodName.endsWith("Batch")) {
+            return "batch";
+        }
+        if (executed == null) {
+            return "other";
+        }
+        String trimmed = executed.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String verb = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return OPERATIONS.contains(verb) ? verb : "other";
+    }
+}
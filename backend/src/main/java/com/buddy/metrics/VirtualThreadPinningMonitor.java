@@ -0,0 +1,119 @@
+package com.buddy.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams JFR jdk.VirtualThreadPinned events in-process. Each time a virtual thread blocks
+ * while pinned to its carrier (typically inside a synchronized block) for longer than the
+ * threshold, the top frames of its stack are logged at WARN and the event is counted in
+ * buddy.vthreads.pinned, tagged with the first application frame.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    
+    private final MeterRegistry meterRegistry;
+    private RecordingStream recordingStream;
+    
+    @Value("${vthreads.pinning.threshold-ms:20}")
+    private long thresholdMs;
+    
+    @Value("${vthreads.pinning.stack-depth:20}")
+    private int stackDepth;
+    
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        logger.info("Watching for virtual thread pinning longer than {} ms", thresholdMs);
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        String site = pinningSite(event.getStackTrace());
+        Counter.builder("buddy.vthreads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .tag("site", site)
+                .register(meterRegistry)
+                .increment();
+        logger.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site,
+                formatStack(event.getStackTrace()));
+    }
+    
+    private String formatStack(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        StringBuilder stack = new StringBuilder();
+        for (RecordedFrame frame : frames.subList(0, Math.min(stackDepth, frames.size()))) {
+            stack.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName());
+            if (frame.getLineNumber() > 0) {
+                stack.append(':').append(frame.getLineNumber());
+            }
+        }
+        if (frames.size() > stackDepth || stackTrace.isTruncated()) {
+            stack.append("\n\t...");
+        }
+        return stack.toString();
+    }
+    
+    // Prefer our own frames; otherwise fall back to the innermost non-JDK frame
+    private String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame fallback = null;
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.buddy.")) {
+                return describe(frame);
+            }
+            if (fallback == null && !type.startsWith("java.") && !type.startsWith("jdk.")) {
+                fallback = frame;
+            }
+        }
+        return fallback != null ? describe(fallback) : "jdk";
+    }
+    
+    private String describe(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+    }
+    
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.buddy.model;
 
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.firestore.annotation.PropertyName;
 
 import java.util.Map;
 
@@ -10,6 +11,7 @@ public class ChatMessage {
     @DocumentId
     private String id;
     
+    private String conversationId;
     private String senderId;
     private String senderName;
     private String receiverId;
@@ -24,6 +26,7 @@ public class ChatMessage {
     
     public ChatMessage(String senderId, String senderName, String receiverId, 
                       String content, String type) {
+        this.conversationId = conversationIdFor(senderId, receiverId);
         this.senderId = senderId;
         this.senderName = senderName;
         this.receiverId = receiverId;
@@ -33,10 +36,20 @@ public class ChatMessage {
         this.isRead = false;
     }
     
+    /** Same id for both directions of a user pair, so a conversation is a single equality filter. */
+    public static String conversationIdFor(String userId, String otherUserId) {
+        return userId.compareTo(otherUserId) <= 0
+                ? userId + "_" + otherUserId
+                : otherUserId + "_" + userId;
+    }
+    
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     
+    public String getConversationId() { return conversationId; }
+    public void setConversationId(String conversationId) { this.conversationId = conversationId; }
+    
     public String getSenderId() { return senderId; }
     public void setSenderId(String senderId) { this.senderId = senderId; }
     
@@ -55,7 +68,10 @@ public class ChatMessage {
     public Timestamp getTimestamp() { return timestamp; }
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
     
+    // Stored as "isRead" (the name the queries use) rather than the bean-derived "read"
+    @PropertyName("isRead")
     public boolean isRead() { return isRead; }
+    @PropertyName("isRead")
     public void setRead(boolean read) { isRead = read; }
     
     public Map<String, Object> getMetadata() { return metadata; }
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -11,6 +13,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "goals")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "goals")
 public class Goal {
     
     @Id
@@ -67,6 +71,7 @@ public class Goal {
     private Double longitude;
     
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "goals.tags")
     @CollectionTable(name = "goal_tags", joinColumns = @JoinColumn(name = "goal_id"))
     @Column(name = "tag")
     private List<String> tags;
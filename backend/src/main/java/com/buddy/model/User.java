@@ -4,16 +4,21 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User implements UserDetails {
     
     @Id
@@ -46,6 +51,17 @@ public class User implements UserDetails {
     
     private boolean enabled = true;
     
+    // IANA zone id, e.g. "Europe/Berlin"; quiet hours are local times in this zone
+    @Size(max = 64)
+    @Column(name = "time_zone")
+    private String timeZone;
+    
+    @Column(name = "quiet_hours_start")
+    private LocalTime quietHoursStart;
+    
+    @Column(name = "quiet_hours_end")
+    private LocalTime quietHoursEnd;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -126,6 +142,15 @@ public class User implements UserDetails {
     
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+    
+    public LocalTime getQuietHoursStart() { return quietHoursStart; }
+    public void setQuietHoursStart(LocalTime quietHoursStart) { this.quietHoursStart = quietHoursStart; }
+    
+    public LocalTime getQuietHoursEnd() { return quietHoursEnd; }
+    public void setQuietHoursEnd(LocalTime quietHoursEnd) { this.quietHoursEnd = quietHoursEnd; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
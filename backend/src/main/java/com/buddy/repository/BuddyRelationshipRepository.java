@@ -24,11 +24,22 @@ public interface BuddyRelationshipRepository extends JpaRepository<BuddyRelation
            "AND br.status = 'ACTIVE'")
     List<BuddyRelationship> findActiveRelationshipsByUser(@Param("user") User user);
     
+    // Version stamp of everything findActiveRelationshipsByUser returns, used as the ETag of GET /buddies/my-buddies
+    @Query("SELECT COUNT(br), COALESCE(SUM(br.id), 0), MAX(br.updatedAt), MAX(u1.updatedAt), MAX(u2.updatedAt), " +
+           "MAX(g.updatedAt) FROM BuddyRelationship br JOIN br.user1 u1 JOIN br.user2 u2 JOIN br.goal g " +
+           "WHERE (br.user1 = :user OR br.user2 = :user) AND br.status = 'ACTIVE'")
+    List<Object[]> findActiveRelationshipsStamp(@Param("user") User user);
+    
     // Find relationship between two specific users
     @Query("SELECT br FROM BuddyRelationship br WHERE " +
            "((br.user1 = :user1 AND br.user2 = :user2) OR (br.user1 = :user2 AND br.user2 = :user1))")
     Optional<BuddyRelationship> findRelationshipBetweenUsers(@Param("user1") User user1, @Param("user2") User user2);
     
+    // Other active relationships between the pair, e.g. on different goals
+    @Query("SELECT COUNT(br) FROM BuddyRelationship br WHERE br.status = 'ACTIVE' AND " +
+           "((br.user1 = :user1 AND br.user2 = :user2) OR (br.user1 = :user2 AND br.user2 = :user1))")
+    long countActiveBetweenUsers(@Param("user1") User user1, @Param("user2") User user2);
+    
     // Find relationships for a specific goal
     List<BuddyRelationship> findByGoal(Goal goal);
     
@@ -3,8 +3,14 @@ package com.buddy.repository;
 import com.buddy.model.User;
 import com.buddy.model.UserDevice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +25,28 @@ public interface UserDeviceRepository extends JpaRepository<UserDevice, Long> {
     
     void deleteByFcmToken(String fcmToken);
     
+    @Transactional
     void deleteByUserAndFcmToken(User user, String fcmToken);
+    
+    long countByIsActive(boolean isActive);
+    
+    // (userId, fcmToken) pairs for DeviceRegistry's bulk loads
+    @Query("SELECT d.user.id, d.fcmToken FROM UserDevice d WHERE d.user.id IN :userIds AND d.isActive = true")
+    List<Object[]> findActiveTokensByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT DISTINCT d.user.id FROM UserDevice d WHERE d.fcmToken IN :tokens")
+    List<Long> findUserIdsByFcmTokens(@Param("tokens") Collection<String> tokens);
+    
+    // Bulk updates used by TokenHealthTracker; they bypass the persistence context.
+    // Rows updated at or after :now were registered again since the tokens were reported dead.
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserDevice d SET d.isActive = false, d.updatedAt = :now " +
+           "WHERE d.fcmToken IN :tokens AND d.isActive = true AND d.updatedAt < :now")
+    int deactivateByFcmTokens(@Param("tokens") Collection<String> tokens, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserDevice d WHERE d.isActive = false AND d.updatedAt < :cutoff")
+    int deleteInactiveUpdatedBefore(@Param("cutoff") LocalDateTime cutoff);
 } 
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.buddy.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Caps the requests in flight with an AIMD limit driven by the database pool. A request that
+ * finishes while threads are queued for a connection cuts the limit by the backoff ratio (at
+ * most once per backoff interval). Latency alone never cuts it: routes like
+ * /buddies/recommendations are slow with an idle database, and would otherwise shrink the limit
+ * for everyone. Below the initial limit it regrows by one per request finished without waiters,
+ * so a quiet period after a spike restores it; above that it grows by one per limit's worth of
+ * such requests, and only while at least half of the limit is in use.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long backoffIntervalNanos;
+    private final double backoffRatio;
+    private final IntSupplier databaseWaiters;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long backoffIntervalNanos,
+                             double backoffRatio, IntSupplier databaseWaiters) {
+        this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffIntervalNanos = backoffIntervalNanos;
+        this.backoffRatio = backoffRatio;
+        this.databaseWaiters = databaseWaiters;
+        this.limit = new AtomicInteger(this.initialLimit);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (databaseWaiters.getAsInt() > 0) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            // One cut per backoff interval, so a burst of queued requests does not collapse the limit
+            if (now - last > backoffIntervalNanos && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * backoffRatio)));
+                successes.set(0);
+            }
+            return;
+        }
+        int current = limit.get();
+        if (current < initialLimit) {
+            limit.updateAndGet(l -> Math.min(initialLimit, l + 1));
+            return;
+        }
+        if (wasInFlight * 2 >= current && successes.incrementAndGet() >= current) {
+            successes.set(0);
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    int limit() {
+        return limit.get();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
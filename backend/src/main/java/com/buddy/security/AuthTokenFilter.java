@@ -1,12 +1,18 @@
 package com.buddy.security;
 
+import com.buddy.logging.RequestLogFilter;
+import com.buddy.logging.SampledDebugFilter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +22,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Set;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
     
@@ -25,6 +32,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
+    // Users whose requests are always logged at DEBUG (see SampledDebugFilter)
+    @Value("${request-logging.debug-users:}")
+    private Set<String> debugUsers;
+    
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
     
     @Override
@@ -32,15 +46,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                   FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateToken(jwt)) {
-                String username = jwtUtils.extractUsername(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (jwt != null) {
+                // Token validation and the user lookup show up as one span in the request's trace
+                Observation.createNotStarted("buddy.auth.token", observationRegistry)
+                        .observe(() -> authenticate(request, jwt));
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -49,6 +58,24 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    private void authenticate(HttpServletRequest request, String jwt) {
+        if (!jwtUtils.validateToken(jwt)) {
+            return;
+        }
+        String username = jwtUtils.extractUsername(jwt);
+        MDC.put(RequestLogFilter.USER, username);
+        if (debugUsers.contains(username)) {
+            MDC.put(SampledDebugFilter.MDC_KEY, "user");
+        }
+        
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+    
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         
@@ -0,0 +1,218 @@
+package com.buddy.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Sits right after AuthTokenFilter. Each user (or client IP when anonymous) gets a token bucket
+ * for all requests, plus one per route listed under rate-limit.routes; an empty bucket answers
+ * 429 with Retry-After. Admitted requests then pass an adaptive concurrency limit that answers
+ * 503 once requests start queueing for database connections.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    public record BucketSettings(double rate, int burst) {}
+
+    private record Policy(String route, long intervalNanos, long toleranceNanos) {
+        static Policy of(String route, BucketSettings settings) {
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+            return new Policy(route, interval, interval * Math.max(0, settings.burst() - 1));
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.default.rate:20}")
+    private double defaultRate;
+
+    @Value("${rate-limit.default.burst:40}")
+    private int defaultBurst;
+
+    @Value("${rate-limit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${rate-limit.concurrency.initial-limit:200}")
+    private int initialLimit;
+
+    @Value("${rate-limit.concurrency.min-limit:20}")
+    private int minLimit;
+
+    @Value("${rate-limit.concurrency.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${rate-limit.concurrency.backoff-interval-ms:500}")
+    private long backoffIntervalMs;
+
+    @Value("${rate-limit.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    private Policy defaultPolicy;
+    private Map<String, Policy> routePolicies;
+    private Cache<String, TokenBucket> buckets;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @Override
+    protected void initFilterBean() {
+        // Runs again from init(FilterConfig) if a container ever registers this filter; keep the first state and gauges
+        if (concurrencyLimit != null) {
+            return;
+        }
+        defaultPolicy = Policy.of(DEFAULT_ROUTE, new BucketSettings(defaultRate, defaultBurst));
+        Map<String, BucketSettings> routes = Binder.get(environment)
+                .bind("rate-limit.routes", Bindable.mapOf(String.class, BucketSettings.class))
+                .orElse(Map.of());
+        routePolicies = new HashMap<>();
+        routes.forEach((route, settings) -> routePolicies.put(route, Policy.of(route, settings)));
+
+        // Idle buckets are full again long before this, so evicting them loses nothing
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(backoffIntervalMs), backoffRatio, databaseWaiters());
+
+        Gauge.builder("buddy.ratelimit.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive limit on requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("buddy.ratelimit.concurrency.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests currently holding a concurrency slot")
+                .register(meterRegistry);
+        Gauge.builder("buddy.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Token buckets held for users and routes")
+                .register(meterRegistry);
+    }
+
+    private IntSupplier databaseWaiters() {
+        try {
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            return () -> {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+            };
+        } catch (SQLException e) {
+            logger.info("DataSource is not a Hikari pool; concurrency limit stays at its initial value");
+            return () -> 0;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod()) || path(request).startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = path(request);
+        String client = client(request);
+        long now = System.nanoTime();
+
+        long waitNanos = take(defaultPolicy, client, now);
+        Policy routePolicy = routePolicies.get(path);
+        if (waitNanos == 0 && routePolicy != null) {
+            waitNanos = take(routePolicy, client, now);
+        }
+        if (waitNanos > 0) {
+            String route = routePolicy != null ? routePolicy.route() : DEFAULT_ROUTE;
+            reject(response, 429, "rate", route, "Too many requests, slow down",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+            return;
+        }
+
+        // Server-sent event streams stay open for minutes and would pin a slot for their lifetime
+        if (path.equals("/push/stream")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            reject(response, 503, "concurrency", routePolicy != null ? routePolicy.route() : DEFAULT_ROUTE,
+                    "Server is busy, try again shortly", 1);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimit.release();
+        }
+    }
+
+    private long take(Policy policy, String client, long now) {
+        TokenBucket bucket = buckets.get(policy.route() + '|' + client, key -> new TokenBucket());
+        return bucket.tryAcquire(now, policy.intervalNanos(), policy.toleranceNanos());
+    }
+
+    private void reject(HttpServletResponse response, int status, String reason, String route,
+                        String message, long retryAfterSeconds) throws IOException {
+        Counter.builder("buddy.ratelimit.rejected")
+                .description("Requests turned away by the rate limiter (429) or the concurrency limit (503)")
+                .tag("reason", reason)
+                .tag("route", route)
+                .register(meterRegistry)
+                .increment();
+        response.setStatus(status);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    // In prod the remote address is the forwarded client address (server.forward-headers-strategy)
+    private static String client(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,32 @@
+package com.buddy.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the only state is the theoretical arrival time of
+ * the next request, advanced with a single CAS per admitted request.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Takes one token. Returns 0 when admitted, otherwise the nanoseconds until a token is free.
+     *
+     * @param intervalNanos time to earn one token (1 / rate)
+     * @param toleranceNanos how far ahead of schedule a client may run ((burst - 1) * interval)
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, nowNanos);
+            long ahead = base - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
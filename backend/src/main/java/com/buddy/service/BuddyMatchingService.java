@@ -7,6 +7,7 @@ import com.buddy.model.User;
 import com.buddy.repository.BuddyRelationshipRepository;
 import com.buddy.repository.CheckInRepository;
 import com.buddy.repository.GoalRepository;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -27,6 +28,7 @@ public class BuddyMatchingService {
     @Autowired
     private CheckInRepository checkInRepository;
     
+    @Observed(name = "buddy.matching", contextualName = "find-compatible-goals")
     public List<Goal> findCompatibleGoals(User user) {
         // Get user's active goals to understand preferences
         List<Goal> userGoals = goalRepository.findByUserAndStatus(user, Goal.GoalStatus.ACTIVE);
@@ -129,6 +131,7 @@ public class BuddyMatchingService {
         }
     }
     
+    @Observed(name = "buddy.matching", contextualName = "request-buddyship")
     public BuddyRelationship requestBuddyship(User requester, Long goalId) throws Exception {
         Goal goal = goalRepository.findById(goalId)
                 .orElseThrow(() -> new RuntimeException("Goal not found"));
@@ -153,6 +156,7 @@ public class BuddyMatchingService {
         return buddyRelationshipRepository.save(relationship);
     }
     
+    @Observed(name = "buddy.matching", contextualName = "accept-buddy-request")
     public BuddyRelationship acceptBuddyRequest(User user, Long relationshipId) throws Exception {
         BuddyRelationship relationship = buddyRelationshipRepository.findById(relationshipId)
                 .orElseThrow(() -> new RuntimeException("Buddy request not found"));
@@ -173,7 +177,7 @@ public class BuddyMatchingService {
         return buddyRelationshipRepository.save(relationship);
     }
     
-    public void rejectBuddyRequest(User user, Long relationshipId) throws Exception {
+    public BuddyRelationship rejectBuddyRequest(User user, Long relationshipId) throws Exception {
         BuddyRelationship relationship = buddyRelationshipRepository.findById(relationshipId)
                 .orElseThrow(() -> new RuntimeException("Buddy request not found"));
         
@@ -183,6 +187,7 @@ public class BuddyMatchingService {
         }
         
         buddyRelationshipRepository.delete(relationship);
+        return relationship;
     }
     
     public List<BuddyRelationship> getUserBuddies(User user) {
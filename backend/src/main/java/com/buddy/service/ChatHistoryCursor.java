@@ -0,0 +1,29 @@
+package com.buddy.service;
+
+import com.google.cloud.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque "before" cursor for chat history: timestamp plus id of the oldest message on the
+ * previous page. Both stores order by (timestamp, id) descending, so the pair is a unique key.
+ */
+public record ChatHistoryCursor(Timestamp timestamp, String messageId) {
+    
+    public String encode() {
+        String raw = timestamp.getSeconds() + ":" + timestamp.getNanos() + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static ChatHistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Timestamp timestamp = Timestamp.ofTimeSecondsAndNanos(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+            return new ChatHistoryCursor(timestamp, parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.buddy.service;
+
+import com.buddy.dto.ChatHistoryPage;
+import com.buddy.model.ChatMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage engine behind the chat endpoints. Selected by chat.store (firestore or postgres);
+ * see ChatStoreConfig. Implementations must not block the caller on remote I/O longer than
+ * one local database call.
+ */
+public interface ChatStore {
+    
+    /** Persists the message and completes with its id. */
+    CompletableFuture<String> save(ChatMessage message);
+    
+    /** One page of the conversation between the two users, newest first (see ChatHistoryCursor). */
+    CompletableFuture<ChatHistoryPage> history(String userId, String otherUserId, int pageSize, String before);
+    
+    /**
+     * Unread message count per conversation id for the user. Served from counters maintained
+     * on save and markRead, so the cost does not grow with the number of unread messages.
+     */
+    CompletableFuture<Map<String, Long>> unreadCounts(String userId);
+    
+    default CompletableFuture<Long> countUnread(String userId) {
+        return unreadCounts(userId).thenApply(counts -> counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+    
+    /**
+     * Marks one message read. Fails with AccessDeniedException unless the user is its receiver,
+     * and with IllegalArgumentException if it does not exist.
+     */
+    CompletableFuture<Void> markRead(String userId, String messageId);
+    
+    /**
+     * Marks every unread message the user received in the conversation with otherUserId, up to
+     * and including upTo, as read in one store-side batch. Completes with the number marked.
+     */
+    CompletableFuture<Integer> markConversationRead(String userId, String otherUserId, Instant upTo);
+    
+    /** Messages marked read per store-side write batch, tagged by engine. */
+    static DistributionSummary readBatchSizeSummary(MeterRegistry meterRegistry, String store) {
+        return DistributionSummary.builder("buddy.chat.read.batch.size")
+                .description("Chat messages marked read per write batch")
+                .tag("store", store)
+                .serviceLevelObjectives(1, 10, 50, 100, 250, 499)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,180 @@
+package com.buddy.service;
+
+import com.buddy.metrics.RequestHandlerContext;
+import com.buddy.model.BuddyRelationship;
+import com.buddy.model.Goal;
+import com.buddy.model.User;
+import com.buddy.repository.GoalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Builds the home screen payload in one request. Sections load in parallel, each in its own
+ * read-only transaction, and whatever has not finished within the time budget is reported
+ * under "degraded" instead of failing the whole response.
+ */
+@Service
+public class DashboardService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+    
+    @Autowired
+    private GoalRepository goalRepository;
+    
+    @Autowired
+    private BuddyMatchingService buddyMatchingService;
+    
+    @Autowired
+    private ChatStore chatStore;
+    
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private Executor dashboardExecutor;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${dashboard.time-budget-ms:800}")
+    private long timeBudgetMs;
+    
+    public Map<String, Object> buildDashboard(User user) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        
+        CompletableFuture<List<Map<String, Object>>> goalsFuture = section(true, () ->
+                goalRepository.findByUserOrderByCreatedAtDesc(user).stream()
+                        .map(this::goalSummary)
+                        .toList());
+        CompletableFuture<List<Map<String, Object>>> buddiesFuture = section(true, () ->
+                buddyMatchingService.getUserBuddies(user).stream()
+                        .map(relationship -> buddySummary(relationship, relationship.getOtherUser(user)))
+                        .toList());
+        CompletableFuture<List<Map<String, Object>>> pendingFuture = section(true, () ->
+                buddyMatchingService.getPendingRequests(user).stream()
+                        .map(relationship -> buddySummary(relationship, relationship.getUser2()))
+                        .toList());
+        CompletableFuture<Long> unreadFuture = section(false, () -> unreadCount(user));
+        
+        List<String> degraded = new ArrayList<>();
+        List<Map<String, Object>> goals = await("goals", goalsFuture, deadline, degraded);
+        List<Map<String, Object>> buddies = await("buddies", buddiesFuture, deadline, degraded);
+        List<Map<String, Object>> pendingRequests = await("pendingRequests", pendingFuture, deadline, degraded);
+        Long unreadCount = await("unreadCount", unreadFuture, deadline, degraded);
+        
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("user", userSummary(user));
+        dashboard.put("goals", goals);
+        // Active goals are a subset of goals, so only their ids are sent
+        dashboard.put("activeGoalIds", goals == null ? null : goals.stream()
+                .filter(goal -> goal.get("status") == Goal.GoalStatus.ACTIVE)
+                .map(goal -> goal.get("id"))
+                .toList());
+        dashboard.put("buddies", buddies);
+        dashboard.put("pendingRequests", pendingRequests);
+        dashboard.put("unreadCount", unreadCount);
+        dashboard.put("degraded", degraded);
+        return dashboard;
+    }
+    
+    private <T> CompletableFuture<T> section(boolean transactional, Supplier<T> loader) {
+        String handler = RequestHandlerContext.get();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            // Carries the caller's SecurityContext so replica stickiness still applies
+            return CompletableFuture.supplyAsync(() -> {
+                RequestHandlerContext.set(handler);
+                try {
+                    return transactional ? readOnly.execute(status -> loader.get()) : loader.get();
+                } finally {
+                    RequestHandlerContext.clear();
+                }
+            }, new DelegatingSecurityContextExecutor(dashboardExecutor));
+        } catch (RuntimeException e) {
+            // Executor saturated - report the section as degraded rather than queueing unbounded work
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    private <T> T await(String section, CompletableFuture<T> future, long deadline, List<String> degraded) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            logger.warn("Dashboard section '{}' exceeded the {} ms budget", section, timeBudgetMs);
+        } catch (ExecutionException e) {
+            logger.warn("Dashboard section '{}' failed: {}", section, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        degraded.add(section);
+        return null;
+    }
+    
+    private long unreadCount(User user) {
+        try {
+            return chatStore.countUnread(user.getId().toString()).get();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to count unread messages", e);
+        }
+    }
+    
+    private Map<String, Object> userSummary(User user) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", user.getId());
+        data.put("username", user.getUsername());
+        data.put("firstName", user.getFirstName());
+        data.put("lastName", user.getLastName());
+        return data;
+    }
+    
+    private Map<String, Object> goalSummary(Goal goal) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", goal.getId());
+        data.put("title", goal.getTitle());
+        data.put("description", goal.getDescription());
+        data.put("category", goal.getCategory());
+        data.put("difficulty", goal.getDifficulty());
+        data.put("status", goal.getStatus());
+        data.put("startDate", goal.getStartDate().toString());
+        data.put("targetDate", goal.getTargetDate().toString());
+        data.put("isPublic", goal.isPublic());
+        data.put("maxBuddies", goal.getMaxBuddies());
+        data.put("currentProgress", goal.getCurrentProgress());
+        data.put("targetValue", goal.getTargetValue());
+        data.put("targetUnit", goal.getTargetUnit());
+        data.put("progressPercentage", goal.getProgressPercentage());
+        data.put("daysRemaining", goal.getDaysRemaining());
+        return data;
+    }
+    
+    private Map<String, Object> buddySummary(BuddyRelationship relationship, User other) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("relationshipId", relationship.getId());
+        data.put("user", userSummary(other));
+        data.put("goalId", relationship.getGoal().getId());
+        data.put("goalTitle", relationship.getGoal().getTitle());
+        data.put("compatibilityScore", relationship.getCompatibilityScore());
+        data.put("daysActive", relationship.getDaysActive());
+        data.put("createdAt", relationship.getCreatedAt());
+        return data;
+    }
+}
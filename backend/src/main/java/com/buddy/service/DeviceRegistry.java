@@ -0,0 +1,95 @@
+package com.buddy.service;
+
+import com.buddy.repository.UserDeviceRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory map of user id to the FCM tokens of their active devices, used for notification
+ * fan-out instead of a findByUserAndIsActive query per user. Entries load lazily; a bulk lookup
+ * for many users loads all the misses with one IN query. Users without devices are cached as
+ * an empty array too. The cache is bounded by devices.registry.max-users and entries expire
+ * after devices.registry.ttl. Registering, unregistering or deactivating a token invalidates
+ * its user's entry.
+ */
+@Service
+public class DeviceRegistry {
+    
+    private static final String[] NO_TOKENS = new String[0];
+    
+    // Keeps the IN list well under the Postgres bind parameter limit
+    private static final int MAX_IN_LIST = 1000;
+    
+    @Autowired
+    private UserDeviceRepository userDeviceRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${devices.registry.max-users:100000}")
+    private long maxUsers;
+    
+    @Value("${devices.registry.ttl:10m}")
+    private Duration ttl;
+    
+    private Cache<Long, String[]> tokensByUser;
+    
+    @PostConstruct
+    public void init() {
+        tokensByUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensByUser, "device-registry");
+    }
+    
+    /** Active tokens of one user. The returned array is shared, don't modify it. */
+    public String[] tokensFor(Long userId) {
+        return tokensByUser.get(userId, id -> loadAll(Set.of(id)).get(id));
+    }
+    
+    /** Active tokens for each of the users, loading every miss with a single query. */
+    public Map<Long, String[]> tokensFor(Collection<Long> userIds) {
+        return tokensByUser.getAll(userIds, this::loadAll);
+    }
+    
+    public void invalidate(Long userId) {
+        tokensByUser.invalidate(userId);
+    }
+    
+    public void invalidateAll(Collection<Long> userIds) {
+        tokensByUser.invalidateAll(userIds);
+    }
+    
+    private Map<Long, String[]> loadAll(Set<? extends Long> userIds) {
+        Map<Long, List<String>> tokens = new HashMap<>();
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+            for (Object[] row : userDeviceRepository.findActiveTokensByUserIds(chunk)) {
+                tokens.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        Map<Long, String[]> loaded = new HashMap<>();
+        for (Long userId : userIds) {
+            List<String> userTokens = tokens.get(userId);
+            loaded.put(userId, userTokens == null ? NO_TOKENS : userTokens.toArray(String[]::new));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,57 @@
+package com.buddy.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline NotificationSender. Logs instead of calling FCM, and fakes FCM's per-token errors
+ * from the token text so the dispatcher's retry and pruning paths can be exercised locally:
+ * tokens starting with "dead-" are UNREGISTERED, "invalid-" are INVALID_ARGUMENT, and
+ * "flaky-" fail with UNAVAILABLE on the first attempt only.
+ */
+public class FakeNotificationSender implements NotificationSender {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FakeNotificationSender.class);
+    
+    private final long latencyMs;
+    private final AtomicLong sent = new AtomicLong();
+    private final ConcurrentHashMap<String, Boolean> flakyAttempted = new ConcurrentHashMap<>();
+    
+    public FakeNotificationSender(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+    
+    @Override
+    public List<Result> sendEach(List<PushNotification> notifications) throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+        List<Result> results = new ArrayList<>(notifications.size());
+        for (PushNotification notification : notifications) {
+            String token = notification.token();
+            if (token.startsWith("dead-")) {
+                results.add(Result.failure(MessagingErrorCode.UNREGISTERED, "Requested entity was not found."));
+            } else if (token.startsWith("invalid-")) {
+                results.add(Result.failure(MessagingErrorCode.INVALID_ARGUMENT, "The registration token is not valid"));
+            } else if (token.startsWith("flaky-") && flakyAttempted.putIfAbsent(token, true) == null) {
+                results.add(Result.failure(MessagingErrorCode.UNAVAILABLE, "Service unavailable"));
+            } else {
+                results.add(Result.success("fake/" + UUID.randomUUID()));
+                sent.incrementAndGet();
+            }
+        }
+        logger.debug("Fake FCM batch of {} notifications ({} delivered so far)", notifications.size(), sent.get());
+        return results;
+    }
+    
+    public long sentCount() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,44 @@
+package com.buddy.service;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import io.micrometer.observation.annotation.Observed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** NotificationSender over FirebaseMessaging.sendEach, observed as buddy.fcm like FirebaseMessagingService. */
+@Observed(name = "buddy.fcm")
+public class FcmNotificationSender implements NotificationSender {
+    
+    @Override
+    public List<Result> sendEach(List<PushNotification> notifications) throws FirebaseMessagingException {
+        List<Message> messages = new ArrayList<>(notifications.size());
+        for (PushNotification notification : notifications) {
+            messages.add(Message.builder()
+                    .setToken(notification.token())
+                    .setNotification(Notification.builder()
+                            .setTitle(notification.title())
+                            .setBody(notification.body())
+                            .build())
+                    .putAllData(notification.data())
+                    .build());
+        }
+        
+        BatchResponse response = FirebaseMessaging.getInstance().sendEach(messages);
+        List<Result> results = new ArrayList<>(notifications.size());
+        for (SendResponse sendResponse : response.getResponses()) {
+            if (sendResponse.isSuccessful()) {
+                results.add(Result.success(sendResponse.getMessageId()));
+            } else {
+                FirebaseMessagingException e = sendResponse.getException();
+                results.add(Result.failure(e.getMessagingErrorCode(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+}
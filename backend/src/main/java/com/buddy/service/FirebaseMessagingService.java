@@ -1,20 +1,27 @@
 package com.buddy.service;
 
 import com.google.firebase.messaging.*;
+import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 
+/** Single FCM calls; each one is observed as buddy.fcm, tagged with the method. */
 @Service
+@Observed(name = "buddy.fcm")
 @ConditionalOnProperty(name = "firebase.enabled", havingValue = "true", matchIfMissing = false)
 public class FirebaseMessagingService {
     
     private static final Logger logger = LoggerFactory.getLogger(FirebaseMessagingService.class);
     
+    @Autowired
+    private TokenHealthTracker tokenHealthTracker;
+    
     public void sendNotificationToToken(String token, String title, String body) {
         try {
             Message message = Message.builder()
@@ -30,6 +37,9 @@ public class FirebaseMessagingService {
             
         } catch (FirebaseMessagingException e) {
             logger.error("Error sending Firebase message: {}", e.getMessage());
+            if (TokenHealthTracker.isDeadTokenError(e.getMessagingErrorCode())) {
+                tokenHealthTracker.markDead(token);
+            }
             throw new RuntimeException("Failed to send notification", e);
         }
     }
@@ -65,6 +75,9 @@ public class FirebaseMessagingService {
             
         } catch (FirebaseMessagingException e) {
             logger.error("Error sending Firebase data message: {}", e.getMessage());
+            if (TokenHealthTracker.isDeadTokenError(e.getMessagingErrorCode())) {
+                tokenHealthTracker.markDead(token);
+            }
             throw new RuntimeException("Failed to send data notification", e);
         }
     }
@@ -0,0 +1,45 @@
+package com.buddy.service;
+
+import com.buddy.dto.ChatHistoryPage;
+import com.buddy.model.ChatMessage;
+import com.google.cloud.Timestamp;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/** ChatStore over the chat_messages Firestore collection. */
+public class FirestoreChatStore implements ChatStore {
+    
+    private final FirestoreService firestoreService;
+    
+    public FirestoreChatStore(FirestoreService firestoreService) {
+        this.firestoreService = firestoreService;
+    }
+    
+    @Override
+    public CompletableFuture<String> save(ChatMessage message) {
+        return firestoreService.saveChatMessageAsync(message);
+    }
+    
+    @Override
+    public CompletableFuture<ChatHistoryPage> history(String userId, String otherUserId, int pageSize, String before) {
+        return firestoreService.getChatHistoryAsync(userId, otherUserId, pageSize, before);
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, Long>> unreadCounts(String userId) {
+        return firestoreService.getUnreadCountsAsync(userId);
+    }
+    
+    @Override
+    public CompletableFuture<Void> markRead(String userId, String messageId) {
+        return firestoreService.markMessageAsReadAsync(userId, messageId);
+    }
+    
+    @Override
+    public CompletableFuture<Integer> markConversationRead(String userId, String otherUserId, Instant upTo) {
+        return firestoreService.markConversationReadAsync(userId, otherUserId,
+                Timestamp.ofTimeSecondsAndNanos(upTo.getEpochSecond(), upTo.getNano()));
+    }
+}
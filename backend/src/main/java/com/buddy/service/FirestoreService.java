@@ -1,170 +1,484 @@
 package com.buddy.service;
 
+import com.buddy.dto.ChatHistoryPage;
 import com.buddy.model.ChatMessage;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+/**
+ * Firestore access. The *Async methods adapt the client's ApiFutures into CompletableFutures
+ * so callers never park a thread on Firestore I/O; the blocking variants are kept for callers
+ * that already run off the request thread.
+ */
 @Service
 @ConditionalOnProperty(name = "firebase.enabled", havingValue = "true", matchIfMissing = false)
 public class FirestoreService {
     
     private static final Logger logger = LoggerFactory.getLogger(FirestoreService.class);
     
+    private static final int BACKFILL_PAGE_SIZE = 500;
+    
+    // One write slot per batch is reserved for the counter update (500 writes max)
+    private static final int READ_BATCH_SIZE = 499;
+    private static final int MAX_READ_CONFLICTS = 3;
+    
     @Autowired
     private Firestore firestore;
     
+    @Value("${firebase.firestore.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    @Value("${firebase.firestore.max-in-flight:256}")
+    private int maxInFlight;
+    
+    @Value("${firebase.firestore.backfill-chat-messages:false}")
+    private boolean backfillChatMessages;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
+    private Semaphore inFlight;
+    private DistributionSummary readBatchSize;
+    
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+        readBatchSize = ChatStore.readBatchSizeSummary(meterRegistry, "firestore");
+    }
+    
     // Generic CRUD operations for any collection
     
+    public <T> CompletableFuture<String> saveDocumentAsync(String collection, T document) {
+        return call("saveDocument", () -> firestore.collection(collection).add(document))
+                .thenApply(docRef -> {
+                    logger.info("Document saved with ID: {}", docRef.getId());
+                    return docRef.getId();
+                })
+                .whenComplete((id, e) -> logFailure(e, "saving document to " + collection));
+    }
+    
+    public <T> CompletableFuture<T> getDocumentAsync(String collection, String documentId, Class<T> clazz) {
+        return call("getDocument", () -> firestore.collection(collection).document(documentId).get())
+                .thenApply(document -> {
+                    if (document.exists()) {
+                        return document.toObject(clazz);
+                    }
+                    logger.warn("Document not found: {}/{}", collection, documentId);
+                    return null;
+                })
+                .whenComplete((doc, e) -> logFailure(e, "getting document from " + collection));
+    }
+    
+    public <T> CompletableFuture<List<T>> getAllDocumentsAsync(String collection, Class<T> clazz) {
+        return call("getAllDocuments", () -> firestore.collection(collection).get())
+                .thenApply(snapshot -> snapshot.toObjects(clazz))
+                .whenComplete((docs, e) -> logFailure(e, "getting all documents from " + collection));
+    }
+    
+    public CompletableFuture<Void> updateDocumentAsync(String collection, String documentId, Map<String, Object> updates) {
+        return call("updateDocument", () -> firestore.collection(collection).document(documentId).update(updates))
+                .thenAccept(result -> logger.info("Document updated at: {}", result.getUpdateTime()))
+                .whenComplete((v, e) -> logFailure(e, "updating document in " + collection));
+    }
+    
+    public CompletableFuture<Void> deleteDocumentAsync(String collection, String documentId) {
+        return call("deleteDocument", () -> firestore.collection(collection).document(documentId).delete())
+                .thenAccept(result -> logger.info("Document deleted at: {}", result.getUpdateTime()))
+                .whenComplete((v, e) -> logFailure(e, "deleting document from " + collection));
+    }
+    
     public <T> String saveDocument(String collection, T document) throws ExecutionException, InterruptedException {
-        try {
-            ApiFuture<DocumentReference> future = firestore.collection(collection).add(document);
-            DocumentReference docRef = future.get();
-            logger.info("Document saved with ID: {}", docRef.getId());
-            return docRef.getId();
-        } catch (Exception e) {
-            logger.error("Error saving document to {}: {}", collection, e.getMessage());
-            throw e;
-        }
+        return saveDocumentAsync(collection, document).get();
     }
     
     public <T> T getDocument(String collection, String documentId, Class<T> clazz) 
             throws ExecutionException, InterruptedException {
-        try {
-            DocumentReference docRef = firestore.collection(collection).document(documentId);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
-            DocumentSnapshot document = future.get();
-            
-            if (document.exists()) {
-                return document.toObject(clazz);
-            } else {
-                logger.warn("Document not found: {}/{}", collection, documentId);
-                return null;
-            }
-        } catch (Exception e) {
-            logger.error("Error getting document from {}: {}", collection, e.getMessage());
-            throw e;
-        }
+        return getDocumentAsync(collection, documentId, clazz).get();
     }
     
     public <T> List<T> getAllDocuments(String collection, Class<T> clazz) 
             throws ExecutionException, InterruptedException {
-        try {
-            ApiFuture<QuerySnapshot> future = firestore.collection(collection).get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            List<T> result = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
-                result.add(document.toObject(clazz));
-            }
-            
-            return result;
-        } catch (Exception e) {
-            logger.error("Error getting all documents from {}: {}", collection, e.getMessage());
-            throw e;
-        }
+        return getAllDocumentsAsync(collection, clazz).get();
     }
     
     public void updateDocument(String collection, String documentId, Map<String, Object> updates) 
             throws ExecutionException, InterruptedException {
-        try {
-            DocumentReference docRef = firestore.collection(collection).document(documentId);
-            ApiFuture<WriteResult> future = docRef.update(updates);
-            WriteResult result = future.get();
-            logger.info("Document updated at: {}", result.getUpdateTime());
-        } catch (Exception e) {
-            logger.error("Error updating document in {}: {}", collection, e.getMessage());
-            throw e;
-        }
+        updateDocumentAsync(collection, documentId, updates).get();
     }
     
     public void deleteDocument(String collection, String documentId) 
             throws ExecutionException, InterruptedException {
-        try {
-            DocumentReference docRef = firestore.collection(collection).document(documentId);
-            ApiFuture<WriteResult> future = docRef.delete();
-            WriteResult result = future.get();
-            logger.info("Document deleted at: {}", result.getUpdateTime());
-        } catch (Exception e) {
-            logger.error("Error deleting document from {}: {}", collection, e.getMessage());
-            throw e;
-        }
+        deleteDocumentAsync(collection, documentId).get();
     }
     
     // Specific methods for ChatMessage
     
-    public String saveChatMessage(ChatMessage message) throws ExecutionException, InterruptedException {
-        return saveDocument("chat_messages", message);
+    /** Writes the message and bumps the receiver's unread counter in one atomic batch. */
+    public CompletableFuture<String> saveChatMessageAsync(ChatMessage message) {
+        DocumentReference messageRef = firestore.collection("chat_messages").document();
+        WriteBatch batch = firestore.batch();
+        batch.create(messageRef, message);
+        batch.set(unreadCounterRef(message.getReceiverId()),
+                Map.of("conversations", Map.of(message.getConversationId(), FieldValue.increment(1))),
+                SetOptions.merge());
+        
+        return call("saveChatMessage", batch::commit)
+                .thenApply(results -> messageRef.getId())
+                .whenComplete((id, e) -> logFailure(e, "saving chat message"));
     }
     
-    public List<ChatMessage> getChatHistory(String senderId, String receiverId) 
-            throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection("chat_messages")
-                    .whereIn("senderId", List.of(senderId, receiverId))
-                    .whereIn("receiverId", List.of(senderId, receiverId))
-                    .orderBy("timestamp", Query.Direction.ASCENDING);
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+    /**
+     * One page of the conversation between two users, newest first. Needs the composite index
+     * (conversationId ASC, timestamp DESC, __name__ DESC) from firestore.indexes.json.
+     */
+    public CompletableFuture<ChatHistoryPage> getChatHistoryAsync(String userId, String otherUserId,
+                                                                  int pageSize, String before) {
+        Query query = firestore.collection("chat_messages")
+                .whereEqualTo("conversationId", ChatMessage.conversationIdFor(userId, otherUserId))
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        
+        if (before != null && !before.isBlank()) {
+            ChatHistoryCursor cursor = ChatHistoryCursor.decode(before);
+            query = query.startAfter(cursor.timestamp(), cursor.messageId());
+        }
+        // One extra document tells us whether an older page exists
+        Query pageQuery = query.limit(pageSize + 1);
+        
+        return call("getChatHistory", pageQuery::get)
+                .thenApply(snapshot -> {
+                    List<ChatMessage> messages = toChatMessages(snapshot);
+                    if (messages.size() <= pageSize) {
+                        return new ChatHistoryPage(messages, null);
+                    }
+                    List<ChatMessage> page = messages.subList(0, pageSize);
+                    ChatMessage oldest = page.get(pageSize - 1);
+                    return new ChatHistoryPage(new ArrayList<>(page),
+                            new ChatHistoryCursor(oldest.getTimestamp(), oldest.getId()).encode());
+                })
+                .whenComplete((page, e) -> logFailure(e, "getting chat history"));
+    }
+    
+    public CompletableFuture<List<ChatMessage>> getUnreadMessagesAsync(String receiverId) {
+        Query query = firestore.collection("chat_messages")
+                .whereEqualTo("receiverId", receiverId)
+                .whereEqualTo("isRead", false)
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+        
+        return call("getUnreadMessages", query::get)
+                .thenApply(this::toChatMessages)
+                .whenComplete((messages, e) -> logFailure(e, "getting unread messages"));
+    }
+    
+    /**
+     * Unread messages per conversation for the user, from the single counter document kept
+     * up to date by saveChatMessageAsync and markMessageAsReadAsync.
+     */
+    public CompletableFuture<Map<String, Long>> getUnreadCountsAsync(String userId) {
+        return call("getUnreadCounts", () -> unreadCounterRef(userId).get())
+                .thenApply(snapshot -> {
+                    Map<String, Long> counts = new HashMap<>();
+                    Object conversations = snapshot.get("conversations");
+                    if (conversations instanceof Map<?, ?> map) {
+                        map.forEach((conversationId, count) -> {
+                            if (count instanceof Number number && number.longValue() > 0) {
+                                counts.put(conversationId.toString(), number.longValue());
+                            }
+                        });
+                    }
+                    return counts;
+                })
+                .whenComplete((counts, e) -> logFailure(e, "getting unread counts"));
+    }
+    
+    /**
+     * Marks the message read and decrements the unread counter, once, in a transaction.
+     * Only the receiver may do this.
+     */
+    public CompletableFuture<Void> markMessageAsReadAsync(String userId, String messageId) {
+        DocumentReference messageRef = firestore.collection("chat_messages").document(messageId);
+        return call("markMessageAsRead", () -> firestore.<Void>runTransaction(transaction -> {
+                    DocumentSnapshot message = transaction.get(messageRef).get();
+                    if (!message.exists()) {
+                        throw new IllegalArgumentException("Message not found: " + messageId);
+                    }
+                    if (!userId.equals(message.getString("receiverId"))) {
+                        throw new AccessDeniedException("Only the receiver can mark a message as read");
+                    }
+                    if (Boolean.TRUE.equals(message.getBoolean("isRead"))) {
+                        return null;
+                    }
+                    transaction.update(messageRef, "isRead", true);
+                    transaction.set(unreadCounterRef(userId),
+                            Map.of("conversations", Map.of(message.getString("conversationId"), FieldValue.increment(-1))),
+                            SetOptions.merge());
+                    return null;
+                }))
+                .whenComplete((v, e) -> logFailure(e, "marking message as read"));
+    }
+    
+    /**
+     * Marks the user's unread messages in the conversation up to upTo as read, one WriteBatch
+     * per page of up to READ_BATCH_SIZE messages, each batch also decrementing the counter.
+     * Every update carries an updateTime precondition, so a message flipped concurrently fails
+     * the batch instead of being counted twice; the page is then re-queried and retried.
+     */
+    public CompletableFuture<Integer> markConversationReadAsync(String userId, String otherUserId, Timestamp upTo) {
+        String conversationId = ChatMessage.conversationIdFor(userId, otherUserId);
+        Query unread = firestore.collection("chat_messages")
+                .whereEqualTo("conversationId", conversationId)
+                .whereEqualTo("receiverId", userId)
+                .whereEqualTo("isRead", false)
+                .whereLessThanOrEqualTo("timestamp", upTo)
+                .limit(READ_BATCH_SIZE);
+        return markReadPage(unread, userId, conversationId, 0, 0)
+                .whenComplete((count, e) -> logFailure(e, "marking conversation as read"));
+    }
+    
+    private CompletableFuture<Integer> markReadPage(Query unread, String userId, String conversationId,
+                                                    int marked, int conflicts) {
+        return call("markConversationRead.query", unread::get).thenCompose(snapshot -> {
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            if (documents.isEmpty()) {
+                return CompletableFuture.completedFuture(marked);
+            }
             
-            List<ChatMessage> messages = new ArrayList<>();
+            WriteBatch batch = firestore.batch();
             for (QueryDocumentSnapshot document : documents) {
-                ChatMessage message = document.toObject(ChatMessage.class);
-                message.setId(document.getId());
-                messages.add(message);
+                batch.update(document.getReference(), Precondition.updatedAt(document.getUpdateTime()), "isRead", true);
             }
+            batch.set(unreadCounterRef(userId),
+                    Map.of("conversations", Map.of(conversationId, FieldValue.increment(-documents.size()))),
+                    SetOptions.merge());
             
-            return messages;
-        } catch (Exception e) {
-            logger.error("Error getting chat history: {}", e.getMessage());
-            throw e;
+            return call("markConversationRead.commit", batch::commit).handle((results, e) -> {
+                if (e == null) {
+                    readBatchSize.record(documents.size());
+                    return markReadPage(unread, userId, conversationId, marked + documents.size(), conflicts);
+                }
+                if (isPreconditionFailure(e) && conflicts < MAX_READ_CONFLICTS) {
+                    return markReadPage(unread, userId, conversationId, marked, conflicts + 1);
+                }
+                return CompletableFuture.<Integer>failedFuture(e);
+            }).thenCompose(next -> next);
+        });
+    }
+    
+    private static boolean isPreconditionFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException
+                    && apiException.getStatusCode().getCode() == StatusCode.Code.FAILED_PRECONDITION) {
+                return true;
+            }
+            if (cause instanceof FirestoreException firestoreException && firestoreException.getStatus() != null
+                    && firestoreException.getStatus().getCode() == Status.Code.FAILED_PRECONDITION) {
+                return true;
+            }
         }
+        return false;
+    }
+    
+    public String saveChatMessage(ChatMessage message) throws ExecutionException, InterruptedException {
+        return saveChatMessageAsync(message).get();
+    }
+    
+    public ChatHistoryPage getChatHistory(String userId, String otherUserId, int pageSize, String before) 
+            throws ExecutionException, InterruptedException {
+        return getChatHistoryAsync(userId, otherUserId, pageSize, before).get();
     }
     
     public List<ChatMessage> getUnreadMessages(String receiverId) 
             throws ExecutionException, InterruptedException {
-        try {
-            Query query = firestore.collection("chat_messages")
-                    .whereEqualTo("receiverId", receiverId)
-                    .whereEqualTo("isRead", false)
-                    .orderBy("timestamp", Query.Direction.DESCENDING);
-            
-            ApiFuture<QuerySnapshot> future = query.get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            
-            List<ChatMessage> messages = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
-                ChatMessage message = document.toObject(ChatMessage.class);
-                message.setId(document.getId());
-                messages.add(message);
-            }
-            
-            return messages;
-        } catch (Exception e) {
-            logger.error("Error getting unread messages: {}", e.getMessage());
-            throw e;
-        }
+        return getUnreadMessagesAsync(receiverId).get();
+    }
+    
+    public Map<String, Long> getUnreadCounts(String userId) throws ExecutionException, InterruptedException {
+        return getUnreadCountsAsync(userId).get();
     }
     
-    public void markMessageAsRead(String messageId) throws ExecutionException, InterruptedException {
-        updateDocument("chat_messages", messageId, Map.of("isRead", true));
+    public void markMessageAsRead(String userId, String messageId) throws ExecutionException, InterruptedException {
+        markMessageAsReadAsync(userId, messageId).get();
     }
     
     // Real-time listener setup (for WebSocket or Server-Sent Events)
     public void setupRealtimeListener(String collection, String field, String value, 
-                                    EventListener<QuerySnapshot> listener) {
+                                    com.google.cloud.firestore.EventListener<QuerySnapshot> listener) {
         firestore.collection(collection)
                 .whereEqualTo(field, value)
                 .addSnapshotListener(listener);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * One-off migration of messages written before conversationId and the unread counters
+     * existed: stamps conversationId, renames the legacy "read" flag to "isRead", and rebuilds
+     * every chat_unread_counters document from the unread messages. Walks the collection in
+     * document-id order, one WriteBatch per page; run it while chat traffic is quiet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillChatMessages() throws ExecutionException, InterruptedException {
+        if (!backfillChatMessages) {
+            return;
+        }
+        int updated = 0;
+        Map<String, Map<String, Long>> unreadCounts = new HashMap<>();
+        DocumentSnapshot last = null;
+        while (true) {
+            Query page = firestore.collection("chat_messages")
+                    .orderBy(FieldPath.documentId())
+                    .limit(BACKFILL_PAGE_SIZE);
+            if (last != null) {
+                page = page.startAfter(last);
+            }
+            List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+            if (documents.isEmpty()) {
+                break;
+            }
+            
+            WriteBatch batch = firestore.batch();
+            int pending = 0;
+            for (QueryDocumentSnapshot document : documents) {
+                String senderId = document.getString("senderId");
+                String receiverId = document.getString("receiverId");
+                if (senderId == null || receiverId == null) {
+                    continue;
+                }
+                String conversationId = ChatMessage.conversationIdFor(senderId, receiverId);
+                Map<String, Object> updates = new HashMap<>();
+                if (document.getString("conversationId") == null) {
+                    updates.put("conversationId", conversationId);
+                }
+                Boolean read = document.getBoolean("isRead");
+                if (read == null) {
+                    read = Boolean.TRUE.equals(document.getBoolean("read"));
+                    updates.put("isRead", read);
+                }
+                if (!updates.isEmpty()) {
+                    batch.update(document.getReference(), updates);
+                    pending++;
+                }
+                if (!read) {
+                    unreadCounts.computeIfAbsent(receiverId, id -> new HashMap<>()).merge(conversationId, 1L, Long::sum);
+                }
+            }
+            if (pending > 0) {
+                batch.commit().get();
+                updated += pending;
+            }
+            last = documents.get(documents.size() - 1);
+        }
+        
+        for (Map.Entry<String, Map<String, Long>> entry : unreadCounts.entrySet()) {
+            unreadCounterRef(entry.getKey()).set(Map.of("conversations", entry.getValue())).get();
+        }
+        logger.info("Backfilled {} chat messages and rebuilt unread counters for {} users", updated, unreadCounts.size());
+    }
+    
+    private DocumentReference unreadCounterRef(String userId) {
+        return firestore.collection("chat_unread_counters").document(userId);
+    }
+    
+    private List<ChatMessage> toChatMessages(QuerySnapshot snapshot) {
+        List<ChatMessage> messages = new ArrayList<>(snapshot.size());
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+            ChatMessage message = document.toObject(ChatMessage.class);
+            message.setId(document.getId());
+            messages.add(message);
+        }
+        return messages;
+    }
+    
+    /**
+     * Starts a Firestore call and completes the returned future from the client's callback.
+     * Fails fast with RejectedExecutionException once max-in-flight calls are outstanding, and
+     * with TimeoutException (cancelling the RPC) after timeout-ms. The RPC round trip is
+     * observed as buddy.firestore, tagged with the operation name.
+     */
+    private <T> CompletableFuture<T> call(String name, Supplier<ApiFuture<T>> operation) {
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many concurrent Firestore calls (" + maxInFlight + ")"));
+        }
+        
+        Observation observation = Observation.createNotStarted("buddy.firestore", observationRegistry)
+                .contextualName("firestore " + name)
+                .lowCardinalityKeyValue("operation", name)
+                .start();
+        ApiFuture<T> apiFuture;
+        try {
+            apiFuture = operation.get();
+        } catch (RuntimeException e) {
+            inFlight.release();
+            observation.error(e);
+            observation.stop();
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // The permit is tied to the RPC itself, so a timed-out call holds it until it is cancelled
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                inFlight.release();
+                observation.stop();
+                result.complete(value);
+            }
+            
+            @Override
+            public void onFailure(Throwable t) {
+                inFlight.release();
+                observation.error(t);
+                observation.stop();
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            if (e instanceof TimeoutException) {
+                apiFuture.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private void logFailure(Throwable e, String action) {
+        if (e != null) {
+            logger.error("Error {}: {}", action, e.getMessage());
+        }
+    }
+}
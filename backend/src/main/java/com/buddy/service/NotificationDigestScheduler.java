@@ -0,0 +1,388 @@
+package com.buddy.service;
+
+import com.buddy.model.User;
+import com.buddy.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapses buddy and chat events into one push digest per recipient.
+ *
+ * The first event for a recipient opens a window of notifications.digest.window-seconds, and
+ * every event that arrives before it closes goes into the same digest. A window that would
+ * close inside the recipient's quiet hours is pushed to the end of them, in the recipient's
+ * time zone. Events are stored in notification_digest_events (V6), so pending digests survive
+ * a restart; claiming them with DELETE ... RETURNING also keeps two instances from sending the
+ * same digest.
+ *
+ * A single thread owns a priority queue of due times, one entry per recipient with an open
+ * window. It persists incoming events in batches, sleeps until the head is due, and sends.
+ * Events are only scheduled once stored; a failed insert is kept in memory and retried. Every
+ * notifications.digest.recover-interval-seconds the thread also picks up overdue digests left
+ * by an instance that went away.
+ */
+@Service
+public class NotificationDigestScheduler implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDigestScheduler.class);
+    
+    private static final String INSERT =
+            "INSERT INTO notification_digest_events (recipient_id, event_type, title, body, created_at) VALUES (?, ?, ?, ?, ?)";
+    
+    private static final String CLAIM =
+            "DELETE FROM notification_digest_events WHERE recipient_id = ? RETURNING event_type, title, body, created_at";
+    
+    private static final String PENDING_RECIPIENTS =
+            "SELECT recipient_id, MIN(created_at) AS first_at FROM notification_digest_events GROUP BY recipient_id HAVING MIN(created_at) < ?";
+    
+    private static final int MAX_INSERT_BATCH = 500;
+    
+    private static final Duration INSERT_RETRY_DELAY = Duration.ofSeconds(5);
+    
+    // Singular and plural wording per event type in multi-event digests
+    private static final Map<String, String[]> LABELS = Map.of(
+            PushHub.CHAT_MESSAGE, new String[]{"new message", "new messages"},
+            PushHub.BUDDY_REQUEST, new String[]{"buddy request", "buddy requests"},
+            PushHub.BUDDY_ACCEPTED, new String[]{"accepted buddy request", "accepted buddy requests"},
+            PushHub.VALIDATION_REQUEST, new String[]{"check-in to validate", "check-ins to validate"}
+    );
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+    
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${notifications.digest.window-seconds:120}")
+    private long windowSeconds;
+    
+    @Value("${notifications.digest.default-time-zone:UTC}")
+    private String defaultTimeZone;
+    
+    @Value("${notifications.digest.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${notifications.digest.recover-interval-seconds:60}")
+    private long recoverIntervalSeconds;
+    
+    private BlockingQueue<Event> incoming;
+    // Owned by the scheduler thread
+    private final PriorityQueue<Due> dueQueue = new PriorityQueue<>(Comparator.comparing(Due::at));
+    private final Map<Long, Instant> scheduled = new HashMap<>();
+    // Events whose insert failed, oldest first
+    private final List<Event> unstored = new ArrayList<>();
+    private volatile int pendingDigests;
+    private volatile boolean running = true;
+    private Thread scheduler;
+    private DistributionSummary digestSize;
+    
+    @PostConstruct
+    public void init() {
+        incoming = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("buddy.notifications.digests.pending", this, s -> s.pendingDigests)
+                .description("Recipients with an open digest window")
+                .register(meterRegistry);
+        digestSize = DistributionSummary.builder("buddy.notifications.digest.size")
+                .description("Events collapsed into one digest")
+                .serviceLevelObjectives(1, 2, 5, 10, 25)
+                .register(meterRegistry);
+        
+        scheduler = new Thread(this::run, "notify-digest");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+    
+    /**
+     * Adds an event to the recipient's digest. Never blocks; when the queue is full the event
+     * is dropped and false is returned.
+     */
+    public boolean enqueue(Long recipientId, String type, String title, String body) {
+        boolean accepted = running && incoming.offer(new Event(recipientId, type, title, body, Instant.now()));
+        if (!accepted) {
+            logger.warn("Digest queue full, dropped {} event for user {}", type, recipientId);
+        }
+        return accepted;
+    }
+    
+    private void run() {
+        try {
+            recoverPending(Instant.now());
+        } catch (RuntimeException e) {
+            logger.error("Failed to reload pending digests: {}", e.getMessage(), e);
+        }
+        
+        List<Event> batch = new ArrayList<>();
+        Instant retryAt = Instant.now();
+        Instant recoverAt = Instant.now().plusSeconds(recoverIntervalSeconds);
+        while (running) {
+            try {
+                Instant wakeAt = recoverAt;
+                Due head = dueQueue.peek();
+                if (head != null && head.at().isBefore(wakeAt)) {
+                    wakeAt = head.at();
+                }
+                if (!unstored.isEmpty() && retryAt.isBefore(wakeAt)) {
+                    wakeAt = retryAt;
+                }
+                long waitMs = Math.max(0, Duration.between(Instant.now(), wakeAt).toMillis());
+                Event first = incoming.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    incoming.drainTo(batch, MAX_INSERT_BATCH - 1);
+                }
+                if (!unstored.isEmpty() && !retryAt.isAfter(Instant.now())) {
+                    batch.addAll(0, unstored);
+                    unstored.clear();
+                }
+                if (!batch.isEmpty()) {
+                    if (persist(batch)) {
+                        // Only recipients without an open window need their quiet hours looked up
+                        Map<Long, User> recipients = loadRecipients(batch.stream()
+                                .map(Event::recipientId).filter(id -> !scheduled.containsKey(id)).distinct().toList());
+                        for (Event event : batch) {
+                            schedule(event.recipientId(), event.createdAt(), recipients);
+                        }
+                    } else {
+                        keepUnstored(batch);
+                        retryAt = Instant.now().plus(INSERT_RETRY_DELAY);
+                    }
+                    batch.clear();
+                }
+                
+                Instant now = Instant.now();
+                List<Long> dueRecipients = new ArrayList<>();
+                while (!dueQueue.isEmpty() && !dueQueue.peek().at().isAfter(now)) {
+                    dueRecipients.add(dueQueue.poll().recipientId());
+                }
+                if (!dueRecipients.isEmpty()) {
+                    // One query each for the users and their devices, then send one by one
+                    Map<Long, User> recipients = loadRecipients(dueRecipients);
+                    deviceRegistry.tokensFor(dueRecipients);
+                    dueRecipients.forEach(recipientId -> send(recipientId, recipients.get(recipientId)));
+                }
+                
+                if (!now.isBefore(recoverAt)) {
+                    recoverAt = now.plusSeconds(recoverIntervalSeconds);
+                    // Digests a live instance owns are not overdue yet; the rest lost their instance
+                    recoverPending(now.minusSeconds(windowSeconds + recoverIntervalSeconds));
+                }
+                pendingDigests = dueQueue.size();
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Digest scheduler error: {}", e.getMessage(), e);
+                batch.clear();
+            }
+        }
+        
+        // Persist whatever is still queued so the next start picks it up
+        List<Event> remaining = new ArrayList<>(unstored);
+        incoming.drainTo(remaining);
+        if (!remaining.isEmpty() && !persist(remaining)) {
+            logger.error("Lost {} digest events on shutdown", remaining.size());
+        }
+    }
+    
+    private void recoverPending(Instant openedBefore) {
+        Map<Long, Instant> firstEventAt = new LinkedHashMap<>();
+        jdbcTemplate.query(PENDING_RECIPIENTS, rs -> {
+            long recipientId = rs.getLong("recipient_id");
+            if (!scheduled.containsKey(recipientId)) {
+                firstEventAt.put(recipientId, rs.getTimestamp("first_at").toInstant());
+            }
+        }, Timestamp.from(openedBefore));
+        Map<Long, User> recipients = loadRecipients(firstEventAt.keySet());
+        firstEventAt.forEach((recipientId, at) -> schedule(recipientId, at, recipients));
+        if (!firstEventAt.isEmpty()) {
+            logger.info("Reloaded {} pending notification digests", firstEventAt.size());
+        }
+        pendingDigests = dueQueue.size();
+    }
+    
+    private boolean persist(List<Event> events) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Event event = events.get(i);
+                    ps.setLong(1, event.recipientId());
+                    ps.setString(2, event.type());
+                    ps.setString(3, event.title());
+                    ps.setString(4, event.body());
+                    ps.setTimestamp(5, Timestamp.from(event.createdAt()));
+                }
+                
+                @Override
+                public int getBatchSize() {
+                    return events.size();
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Failed to store {} digest events, will retry: {}", events.size(), e.getMessage());
+            return false;
+        }
+    }
+    
+    private void keepUnstored(List<Event> events) {
+        unstored.addAll(events);
+        // Same bound as the incoming queue, so an outage cannot grow the heap without limit
+        int overflow = unstored.size() - queueCapacity;
+        if (overflow > 0) {
+            unstored.subList(0, overflow).clear();
+            logger.error("Dropped {} digest events that could not be stored", overflow);
+        }
+    }
+    
+    private Map<Long, User> loadRecipients(Collection<Long> recipientIds) {
+        Map<Long, User> recipients = new HashMap<>();
+        List<Long> ids = new ArrayList<>(recipientIds);
+        for (int from = 0; from < ids.size(); from += MAX_INSERT_BATCH) {
+            userRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + MAX_INSERT_BATCH)))
+                    .forEach(user -> recipients.put(user.getId(), user));
+        }
+        return recipients;
+    }
+    
+    private void schedule(Long recipientId, Instant firstEventAt, Map<Long, User> recipients) {
+        if (scheduled.containsKey(recipientId)) {
+            return; // joins the open window
+        }
+        Instant due = firstEventAt.plusSeconds(windowSeconds);
+        User recipient = recipients.get(recipientId);
+        if (recipient != null) {
+            due = afterQuietHours(recipient, due);
+        }
+        scheduled.put(recipientId, due);
+        dueQueue.add(new Due(recipientId, due));
+    }
+    
+    private void send(Long recipientId, User recipient) {
+        scheduled.remove(recipientId);
+        if (recipient == null) {
+            return; // events went with the user (ON DELETE CASCADE)
+        }
+        
+        // Quiet hours may have been changed since the window opened
+        Instant now = Instant.now();
+        Instant allowed = afterQuietHours(recipient, now);
+        if (allowed.isAfter(now)) {
+            scheduled.put(recipientId, allowed);
+            dueQueue.add(new Due(recipientId, allowed));
+            return;
+        }
+        
+        List<Event> events = jdbcTemplate.query(CLAIM, (rs, rowNum) -> new Event(recipientId,
+                rs.getString("event_type"), rs.getString("title"), rs.getString("body"),
+                rs.getTimestamp("created_at").toInstant()), recipientId);
+        if (events.isEmpty()) {
+            return; // already sent by another instance
+        }
+        events.sort(Comparator.comparing(Event::createdAt));
+        digestSize.record(events.size());
+        
+        if (events.size() == 1) {
+            Event event = events.get(0);
+            notificationDispatcher.dispatchToUser(recipient, event.title(), event.body(), Map.of("type", event.type()));
+            return;
+        }
+        notificationDispatcher.dispatchToUser(recipient, "You have " + events.size() + " new updates",
+                summarize(events), Map.of("type", "digest", "count", Integer.toString(events.size())));
+    }
+    
+    /** "3 new messages, 1 buddy request", in order of first appearance. */
+    static String summarize(List<Event> events) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        events.forEach(event -> counts.merge(event.type(), 1, Integer::sum));
+        List<String> parts = new ArrayList<>();
+        counts.forEach((type, count) -> {
+            String[] label = LABELS.getOrDefault(type, new String[]{"update", "updates"});
+            parts.add(count + " " + label[count == 1 ? 0 : 1]);
+        });
+        return String.join(", ", parts);
+    }
+    
+    /** The given instant, or the end of the user's quiet hours if it falls inside them. */
+    Instant afterQuietHours(User user, Instant at) {
+        LocalTime start = user.getQuietHoursStart();
+        LocalTime end = user.getQuietHoursEnd();
+        if (start == null || end == null || start.equals(end)) {
+            return at;
+        }
+        ZonedDateTime local = at.atZone(zoneOf(user));
+        LocalTime time = local.toLocalTime();
+        boolean quiet = start.isBefore(end)
+                ? !time.isBefore(start) && time.isBefore(end)
+                : !time.isBefore(start) || time.isBefore(end); // window spans midnight
+        if (!quiet) {
+            return at;
+        }
+        ZonedDateTime quietEnd = local.with(end);
+        if (!quietEnd.isAfter(local)) {
+            quietEnd = quietEnd.plusDays(1);
+        }
+        return quietEnd.toInstant();
+    }
+    
+    private ZoneId zoneOf(User user) {
+        String zone = user.getTimeZone() != null ? user.getTimeZone() : defaultTimeZone;
+        try {
+            return ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            return ZoneId.of(defaultTimeZone);
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        scheduler.interrupt();
+        scheduler.join(5000);
+    }
+    
+    record Event(Long recipientId, String type, String title, String body, Instant createdAt) {
+    }
+    
+    private record Due(Long recipientId, Instant at) {
+    }
+}
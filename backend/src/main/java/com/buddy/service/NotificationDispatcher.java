@@ -0,0 +1,272 @@
+package com.buddy.service;
+
+import com.buddy.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Queues push notifications and sends them in the background. Workers drain the bounded
+ * queue into sendEach batches of up to 500, so notifications from concurrent requests share
+ * one FCM call. Per-token results are handled one by one. Transient errors (UNAVAILABLE,
+ * INTERNAL, QUOTA_EXCEEDED, or a failed call) are retried with exponential backoff and full
+ * jitter. Permanent ones are counted and reported to the failure listeners. Tokens matching
+ * the token filter (known dead, see TokenHealthTracker) are skipped without a send.
+ */
+public class NotificationDispatcher implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+    
+    /** Called for notifications that failed permanently (e.g. an UNREGISTERED token). */
+    public interface FailureListener {
+        void onPermanentFailure(PushNotification notification, NotificationSender.Result result);
+    }
+    
+    public record Settings(int queueCapacity, int workers, int maxAttempts, long initialBackoffMs, long maxBackoffMs) {
+    }
+    
+    private final NotificationSender sender;
+    private final DeviceRegistry deviceRegistry;
+    private final Settings settings;
+    private final BlockingQueue<Pending> queue;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retries;
+    private final List<FailureListener> failureListeners = new ArrayList<>();
+    private volatile Predicate<String> tokenFilter = token -> false;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong skippedTotal = new AtomicLong();
+    private volatile boolean running = true;
+    
+    private final MeterRegistry meterRegistry;
+    private final Timer batchLatency;
+    private final Timer deliveryLatency;
+    private final DistributionSummary batchSize;
+    private final Counter dropped;
+    private final Counter retried;
+    private final Counter skipped;
+    
+    public NotificationDispatcher(NotificationSender sender, DeviceRegistry deviceRegistry,
+                                  Settings settings, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.deviceRegistry = deviceRegistry;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+        
+        Gauge.builder("buddy.notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be sent")
+                .register(meterRegistry);
+        batchLatency = Timer.builder("buddy.notifications.batch.latency")
+                .description("Duration of one sendEach call")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        deliveryLatency = Timer.builder("buddy.notifications.delivery.latency")
+                .description("Time from dispatch to a final outcome, retries included")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("buddy.notifications.batch.size")
+                .description("Notifications per sendEach call")
+                .serviceLevelObjectives(1, 10, 50, 100, 250, 500)
+                .register(meterRegistry);
+        dropped = outcome("dropped");
+        retried = outcome("retried");
+        skipped = outcome("skipped");
+        Gauge.builder("buddy.notifications.skipped.ratio", this, NotificationDispatcher::skippedRatio)
+                .description("Fraction of requested notifications skipped because the token is dead")
+                .register(meterRegistry);
+        
+        CustomizableThreadFactory workerThreads = new CustomizableThreadFactory("notify-");
+        workerThreads.setDaemon(true);
+        workers = Executors.newFixedThreadPool(settings.workers(), workerThreads);
+        for (int i = 0; i < settings.workers(); i++) {
+            workers.execute(this::workLoop);
+        }
+        CustomizableThreadFactory retryThreads = new CustomizableThreadFactory("notify-retry-");
+        retryThreads.setDaemon(true);
+        retries = Executors.newSingleThreadScheduledExecutor(retryThreads);
+    }
+    
+    public void addFailureListener(FailureListener listener) {
+        failureListeners.add(listener);
+    }
+    
+    /** Tokens for which this returns true are skipped instead of sent. */
+    public void setTokenFilter(Predicate<String> isDead) {
+        this.tokenFilter = isDead;
+    }
+    
+    /**
+     * Queues the notification for every live token and returns how many were accepted; the rest are
+     * dropped (and counted) when the queue is full rather than blocking the caller.
+     */
+    public int dispatch(Collection<String> tokens, String title, String body, Map<String, String> data) {
+        int accepted = 0;
+        int skips = 0;
+        long now = System.nanoTime();
+        for (String token : tokens) {
+            if (tokenFilter.test(token)) {
+                skips++;
+            } else if (running && queue.offer(new Pending(new PushNotification(token, title, body, data), 1, now))) {
+                accepted++;
+            } else {
+                dropped.increment();
+            }
+        }
+        requested.addAndGet(tokens.size());
+        if (skips > 0) {
+            skipped.increment(skips);
+            skippedTotal.addAndGet(skips);
+        }
+        if (accepted + skips < tokens.size()) {
+            logger.warn("Notification queue full, dropped {} of {} notifications",
+                    tokens.size() - accepted - skips, tokens.size());
+        }
+        return accepted;
+    }
+    
+    /** Queues the notification for each of the user's active devices. */
+    public int dispatchToUser(User user, String title, String body, Map<String, String> data) {
+        return dispatch(Arrays.asList(deviceRegistry.tokensFor(user.getId())), title, body, data);
+    }
+    
+    /** Queues the same notification for every active device of all the users. */
+    public int dispatchToUsers(Collection<Long> userIds, String title, String body, Map<String, String> data) {
+        List<String> tokens = new ArrayList<>();
+        deviceRegistry.tokensFor(userIds).values().forEach(userTokens -> tokens.addAll(Arrays.asList(userTokens)));
+        return dispatch(tokens, title, body, data);
+    }
+    
+    public int queueDepth() {
+        return queue.size();
+    }
+    
+    private double skippedRatio() {
+        long total = requested.get();
+        return total == 0 ? 0.0 : (double) skippedTotal.get() / total;
+    }
+    
+    private void workLoop() {
+        List<Pending> batch = new ArrayList<>(NotificationSender.MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, NotificationSender.MAX_BATCH_SIZE - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Notification worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void send(List<Pending> batch) {
+        List<PushNotification> notifications = batch.stream().map(Pending::notification).toList();
+        batchSize.record(batch.size());
+        
+        List<NotificationSender.Result> results;
+        long start = System.nanoTime();
+        try {
+            results = sender.sendEach(notifications);
+        } catch (Exception e) {
+            logger.warn("sendEach of {} notifications failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> retryOrFail(pending, NotificationSender.Result.failure(null, e.getMessage())));
+            return;
+        } finally {
+            batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            NotificationSender.Result result = results.get(i);
+            if (result.isSuccess()) {
+                complete(pending, "sent");
+            } else if (result.isTransient()) {
+                retryOrFail(pending, result);
+            } else {
+                fail(pending, result);
+            }
+        }
+    }
+    
+    private void retryOrFail(Pending pending, NotificationSender.Result result) {
+        if (pending.attempt() >= settings.maxAttempts() || !running) {
+            fail(pending, result);
+            return;
+        }
+        // Full jitter: uniform in [0, min(max, initial * 2^(attempt - 1))]
+        long ceiling = Math.min(settings.maxBackoffMs(), settings.initialBackoffMs() << (pending.attempt() - 1));
+        long delayMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        retried.increment();
+        Pending next = new Pending(pending.notification(), pending.attempt() + 1, pending.dispatchedAt());
+        retries.schedule(() -> {
+            if (!queue.offer(next)) {
+                dropped.increment();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void fail(Pending pending, NotificationSender.Result result) {
+        complete(pending, "failed");
+        logger.debug("Notification to {} failed permanently: {} {}",
+                pending.notification().token(), result.errorCode(), result.errorMessage());
+        for (FailureListener listener : failureListeners) {
+            try {
+                listener.onPermanentFailure(pending.notification(), result);
+            } catch (RuntimeException e) {
+                logger.warn("Notification failure listener threw: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void complete(Pending pending, String outcome) {
+        outcome(outcome).increment();
+        deliveryLatency.record(System.nanoTime() - pending.dispatchedAt(), TimeUnit.NANOSECONDS);
+    }
+    
+    private Counter outcome(String outcome) {
+        return Counter.builder("buddy.notifications")
+                .description("Notification outcomes")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        retries.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+    
+    private record Pending(PushNotification notification, int attempt, long dispatchedAt) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.buddy.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.List;
+
+/**
+ * Transport used by NotificationDispatcher: FCM in production, FakeNotificationSender offline.
+ * See NotificationConfig for how one is chosen.
+ */
+public interface NotificationSender {
+    
+    /** Maximum notifications per sendEach call (FCM's limit). */
+    int MAX_BATCH_SIZE = 500;
+    
+    /**
+     * Sends up to MAX_BATCH_SIZE notifications and returns one result per notification, in order.
+     * Throws only when the whole call failed, in which case every notification may be retried.
+     */
+    List<Result> sendEach(List<PushNotification> notifications) throws Exception;
+    
+    record Result(String messageId, MessagingErrorCode errorCode, String errorMessage) {
+        
+        public static Result success(String messageId) {
+            return new Result(messageId, null, null);
+        }
+        
+        public static Result failure(MessagingErrorCode errorCode, String errorMessage) {
+            return new Result(null, errorCode, errorMessage);
+        }
+        
+        public boolean isSuccess() {
+            return errorCode == null && errorMessage == null;
+        }
+        
+        /** Worth retrying with backoff; everything else is permanent for this token. */
+        public boolean isTransient() {
+            return errorCode == null || errorCode == MessagingErrorCode.UNAVAILABLE
+                    || errorCode == MessagingErrorCode.INTERNAL || errorCode == MessagingErrorCode.QUOTA_EXCEEDED;
+        }
+    }
+}
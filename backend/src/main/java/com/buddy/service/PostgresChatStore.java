@@ -0,0 +1,305 @@
+package com.buddy.service;
+
+import com.buddy.dto.ChatHistoryPage;
+import com.buddy.model.ChatMessage;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ChatStore over the chat_messages and chat_unread_counters tables (V4, V5 migrations).
+ *
+ * Sends are group-committed: save() only enqueues, and a single writer thread drains whatever
+ * has queued up into one multi-row batch insert with pre-allocated ids. A quiet system
+ * writes one row per batch with no added latency, and under load batches grow up to
+ * chat.postgres.max-batch-size. A batch that fails is retried row by row, so one bad row only
+ * fails its own sender, and futures are completed on the completion executor rather than the
+ * writer thread, so callers' follow-up work never delays the next batch. History reads are keyset queries on
+ * (conversation_id, created_at, id), so page N costs the same as page 1. Unread counts are
+ * per-(user, conversation) rows updated in the same transaction as the messages.
+ */
+public class PostgresChatStore implements ChatStore, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PostgresChatStore.class);
+    
+    private static final String COLUMNS =
+            "id, conversation_id, sender_id, sender_name, receiver_id, message, message_type, is_read, created_at";
+    
+    private static final String INSERT = "INSERT INTO chat_messages (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String COUNTER_INCREMENT =
+            "INSERT INTO chat_unread_counters (user_id, conversation_id, unread_count) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (user_id, conversation_id) DO UPDATE "
+                    + "SET unread_count = chat_unread_counters.unread_count + EXCLUDED.unread_count, "
+                    + "updated_at = CURRENT_TIMESTAMP";
+    
+    private static final String COUNTER_DECREMENT =
+            "UPDATE chat_unread_counters SET unread_count = GREATEST(unread_count - ?, 0), "
+                    + "updated_at = CURRENT_TIMESTAMP WHERE user_id = ? AND conversation_id = ?";
+    
+    private static final RowMapper<ChatMessage> ROW_MAPPER = (rs, rowNum) -> {
+        ChatMessage message = new ChatMessage();
+        message.setId(Long.toString(rs.getLong("id")));
+        message.setConversationId(rs.getString("conversation_id"));
+        message.setSenderId(Long.toString(rs.getLong("sender_id")));
+        message.setSenderName(rs.getString("sender_name"));
+        message.setReceiverId(Long.toString(rs.getLong("receiver_id")));
+        message.setContent(rs.getString("message"));
+        message.setType(rs.getString("message_type"));
+        message.setRead(rs.getBoolean("is_read"));
+        message.setTimestamp(Timestamp.of(rs.getTimestamp("created_at")));
+        return message;
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary readBatchSize;
+    private final Executor completionExecutor;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingInsert> pending;
+    private final Thread writer;
+    private volatile boolean running = true;
+    
+    public PostgresChatStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             Executor completionExecutor, MeterRegistry meterRegistry,
+                             int maxBatchSize, int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.completionExecutor = completionExecutor;
+        this.readBatchSize = ChatStore.readBatchSizeSummary(meterRegistry, "postgres");
+        this.maxBatchSize = maxBatchSize;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "chat-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    @Override
+    public CompletableFuture<String> save(ChatMessage message) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!running || !pending.offer(new PendingInsert(message, result))) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Chat write queue is full"));
+        }
+        return result;
+    }
+    
+    @Override
+    public CompletableFuture<ChatHistoryPage> history(String userId, String otherUserId, int pageSize, String before) {
+        return query(() -> {
+            String conversationId = ChatMessage.conversationIdFor(userId, otherUserId);
+            // One extra row tells us whether an older page exists
+            List<ChatMessage> messages;
+            if (before == null || before.isBlank()) {
+                messages = jdbcTemplate.query(
+                        "SELECT " + COLUMNS + " FROM chat_messages WHERE conversation_id = ? "
+                                + "ORDER BY created_at DESC, id DESC LIMIT ?",
+                        ROW_MAPPER, conversationId, pageSize + 1);
+            } else {
+                ChatHistoryCursor cursor = ChatHistoryCursor.decode(before);
+                messages = jdbcTemplate.query(
+                        "SELECT " + COLUMNS + " FROM chat_messages WHERE conversation_id = ? "
+                                + "AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?",
+                        ROW_MAPPER, conversationId, cursor.timestamp().toSqlTimestamp(),
+                        Long.parseLong(cursor.messageId()), pageSize + 1);
+            }
+            
+            if (messages.size() <= pageSize) {
+                return new ChatHistoryPage(messages, null);
+            }
+            List<ChatMessage> page = new ArrayList<>(messages.subList(0, pageSize));
+            ChatMessage oldest = page.get(pageSize - 1);
+            return new ChatHistoryPage(page, new ChatHistoryCursor(oldest.getTimestamp(), oldest.getId()).encode());
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, Long>> unreadCounts(String userId) {
+        return query(() -> {
+            Map<String, Long> counts = new HashMap<>();
+            jdbcTemplate.query(
+                    "SELECT conversation_id, unread_count FROM chat_unread_counters "
+                            + "WHERE user_id = ? AND unread_count > 0",
+                    rs -> {
+                        counts.put(rs.getString("conversation_id"), rs.getLong("unread_count"));
+                    },
+                    Long.parseLong(userId));
+            return counts;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Void> markRead(String userId, String messageId) {
+        return query(() -> transactionTemplate.execute(status -> {
+            long id = Long.parseLong(messageId);
+            long receiverId = Long.parseLong(userId);
+            List<String> marked = jdbcTemplate.queryForList(
+                    "UPDATE chat_messages SET is_read = true, updated_at = CURRENT_TIMESTAMP "
+                            + "WHERE id = ? AND receiver_id = ? AND is_read = false RETURNING conversation_id",
+                    String.class, id, receiverId);
+            if (marked.isEmpty()) {
+                List<Long> receivers = jdbcTemplate.queryForList(
+                        "SELECT receiver_id FROM chat_messages WHERE id = ?", Long.class, id);
+                if (receivers.isEmpty()) {
+                    throw new IllegalArgumentException("Message not found: " + messageId);
+                }
+                if (receivers.get(0) != receiverId) {
+                    throw new AccessDeniedException("Only the receiver can mark a message as read");
+                }
+                return null; // already read, counter untouched
+            }
+            jdbcTemplate.update(COUNTER_DECREMENT, 1, receiverId, marked.get(0));
+            readBatchSize.record(1);
+            return null;
+        }));
+    }
+    
+    // A single watermark UPDATE; the unread partial index and the keyset index bound the scan
+    @Override
+    public CompletableFuture<Integer> markConversationRead(String userId, String otherUserId, Instant upTo) {
+        String conversationId = ChatMessage.conversationIdFor(userId, otherUserId);
+        return query(() -> transactionTemplate.execute(status -> {
+            long receiverId = Long.parseLong(userId);
+            Integer marked = jdbcTemplate.queryForObject(
+                    "WITH marked AS (UPDATE chat_messages SET is_read = true, updated_at = CURRENT_TIMESTAMP "
+                            + "WHERE conversation_id = ? AND receiver_id = ? AND is_read = false AND created_at <= ? "
+                            + "RETURNING 1) SELECT count(*) FROM marked",
+                    Integer.class, conversationId, receiverId, java.sql.Timestamp.from(upTo));
+            if (marked != null && marked > 0) {
+                jdbcTemplate.update(COUNTER_DECREMENT, marked, receiverId, conversationId);
+                readBatchSize.record(marked);
+            }
+            return marked == null ? 0 : marked;
+        }));
+    }
+    
+    private void writeLoop() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingInsert first = pending.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<PendingInsert> batch) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> insert(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                String id = Long.toString(ids.get(i));
+                CompletableFuture<String> result = batch.get(i).result();
+                complete(() -> result.complete(id));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                logger.warn("Failed to write {} chat messages ({}), retrying one by one", batch.size(), e.getMessage());
+                batch.forEach(insert -> flush(List.of(insert)));
+                return;
+            }
+            logger.error("Failed to write chat message: {}", e.getMessage());
+            CompletableFuture<String> result = batch.get(0).result();
+            complete(() -> result.completeExceptionally(e));
+        }
+    }
+    
+    // Dependent stages (push, digest, the response) run where the future completes: keep them off the writer
+    private void complete(Runnable completion) {
+        try {
+            completionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+    
+    // Inserts the rows and bumps the receivers' unread counters, one statement batch each
+    private List<Long> insert(List<PendingInsert> batch) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval('chat_messages_id_seq') FROM generate_series(1, ?)", Long.class, batch.size());
+        
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ChatMessage message = batch.get(i).message();
+                ps.setLong(1, ids.get(i));
+                ps.setString(2, message.getConversationId());
+                ps.setLong(3, Long.parseLong(message.getSenderId()));
+                ps.setString(4, message.getSenderName());
+                ps.setLong(5, Long.parseLong(message.getReceiverId()));
+                ps.setString(6, message.getContent());
+                ps.setString(7, message.getType());
+                ps.setBoolean(8, message.isRead());
+                ps.setTimestamp(9, message.getTimestamp().toSqlTimestamp());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+        
+        // Keyed "receiver conversation" and sorted, so concurrent transactions lock counter rows in the same order
+        Map<String, Integer> increments = new TreeMap<>();
+        for (PendingInsert insert : batch) {
+            ChatMessage message = insert.message();
+            increments.merge(message.getReceiverId() + " " + message.getConversationId(), 1, Integer::sum);
+        }
+        List<Object[]> counterArgs = new ArrayList<>(increments.size());
+        increments.forEach((key, count) -> {
+            String[] parts = key.split(" ", 2);
+            counterArgs.add(new Object[] { Long.parseLong(parts[0]), parts[1], count });
+        });
+        jdbcTemplate.batchUpdate(COUNTER_INCREMENT, counterArgs);
+        return ids;
+    }
+    
+    private static <T> CompletableFuture<T> query(Supplier<T> work) {
+        try {
+            return CompletableFuture.completedFuture(work.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    private record PendingInsert(ChatMessage message, CompletableFuture<String> result) {
+    }
+}
@@ -0,0 +1,281 @@
+package com.buddy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out hub for the per-user server-sent event stream (GET /push/stream).
+ *
+ * Idle connections cost only the async servlet request and an empty buffer: no thread is held
+ * while a client waits. Publishers never block either. Each event is serialized once and queued
+ * on every connection of the recipient, and a small sender pool drains the queues. When a slow
+ * client lets its bounded buffer fill up, the queued events are dropped and a single "resync"
+ * event tells it to reload state over REST instead.
+ */
+@Service
+public class PushHub implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PushHub.class);
+    
+    public static final String CHAT_MESSAGE = "chat.message";
+    public static final String BUDDY_REQUEST = "buddy.request";
+    public static final String BUDDY_ACCEPTED = "buddy.accepted";
+    public static final String BUDDY_REJECTED = "buddy.rejected";
+    public static final String VALIDATION_REQUEST = "checkin.validation-request";
+    private static final String READY = "ready";
+    private static final String RESYNC = "resync";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${push.buffer-size:64}")
+    private int bufferSize;
+    
+    @Value("${push.heartbeat-ms:25000}")
+    private long heartbeatMs;
+    
+    @Value("${push.connection-timeout-ms:1800000}")
+    private long connectionTimeoutMs;
+    
+    @Value("${push.max-connections:20000}")
+    private int maxConnections;
+    
+    @Value("${push.max-connections-per-user:4}")
+    private int maxConnectionsPerUser;
+    
+    @Value("${push.sender-threads:4}")
+    private int senderThreads;
+    
+    private final Map<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong connectionIds = new AtomicLong();
+    private ExecutorService sender;
+    private ScheduledExecutorService heartbeat;
+    private Counter overflows;
+    
+    @PostConstruct
+    public void init() {
+        CustomizableThreadFactory senderThreadFactory = new CustomizableThreadFactory("push-sender-");
+        senderThreadFactory.setDaemon(true);
+        sender = Executors.newFixedThreadPool(senderThreads, senderThreadFactory);
+        
+        CustomizableThreadFactory heartbeatThreadFactory = new CustomizableThreadFactory("push-heartbeat-");
+        heartbeatThreadFactory.setDaemon(true);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(heartbeatThreadFactory);
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        
+        Gauge.builder("buddy.push.connections", connectionCount, AtomicInteger::get)
+                .description("Open push stream connections")
+                .register(meterRegistry);
+        overflows = Counter.builder("buddy.push.overflows")
+                .description("Connections whose send buffer filled up and were told to resync")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Opens a stream for the user. Throws RejectedExecutionException when the instance is at
+     * push.max-connections; a user's oldest stream is closed beyond max-connections-per-user.
+     */
+    public SseEmitter connect(String userId) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw new RejectedExecutionException("Push connection limit reached");
+        }
+        
+        SseEmitter emitter = new SseEmitter(connectionTimeoutMs);
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> {
+            remove(connection);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(connection));
+        
+        Connection evicted = null;
+        Set<Connection> userConnections = connections.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet());
+        userConnections.add(connection);
+        if (userConnections.size() > maxConnectionsPerUser) {
+            evicted = userConnections.stream()
+                    .filter(c -> c != connection)
+                    .min((a, b) -> Long.compare(a.id, b.id))
+                    .orElse(null);
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+        
+        connection.offer(frame(READY, Map.of("heartbeatMs", heartbeatMs)));
+        return emitter;
+    }
+    
+    /** Queues an event on every open stream of the user; a no-op when the user is offline. */
+    public void publish(String userId, String type, Object payload) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null || userConnections.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> frame = frame(type, payload);
+        for (Connection connection : userConnections) {
+            connection.offer(frame);
+        }
+        meterRegistry.counter("buddy.push.events", "type", type).increment();
+    }
+    
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+    
+    private Set<DataWithMediaType> frame(String type, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Push payload is not serializable: " + type, e);
+        }
+        return SseEmitter.event()
+                .id(Long.toString(eventIds.incrementAndGet()))
+                .name(type)
+                .data(json)
+                .build();
+    }
+    
+    private void sendHeartbeats() {
+        // A comment line keeps proxies from closing idle streams and surfaces dead sockets
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        connections.values().forEach(userConnections -> userConnections.forEach(c -> c.offer(ping)));
+    }
+    
+    private void remove(Connection connection) {
+        if (connection.markClosed()) {
+            connectionCount.decrementAndGet();
+            connections.computeIfPresent(connection.userId, (userId, userConnections) -> {
+                userConnections.remove(connection);
+                return userConnections.isEmpty() ? null : userConnections;
+            });
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::close));
+        sender.shutdown();
+    }
+    
+    private final class Connection {
+        
+        private final long id = connectionIds.incrementAndGet();
+        private final String userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<DataWithMediaType>> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean resync;
+        private boolean closed;
+        
+        Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+        
+        void offer(Set<DataWithMediaType> frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    // Backpressure: the client is behind, so replace the backlog with one resync
+                    buffer.clear();
+                    resync = true;
+                    overflows.increment();
+                }
+                buffer.addLast(frame);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+        
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> next;
+                synchronized (this) {
+                    if (closed) {
+                        draining = false;
+                        return;
+                    }
+                    if (resync) {
+                        resync = false;
+                        next = frame(RESYNC, Map.of("reason", "buffer_overflow"));
+                    } else {
+                        next = buffer.pollFirst();
+                    }
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("Push stream for user {} closed: {}", userId, e.getMessage());
+                    close();
+                    return;
+                }
+            }
+        }
+        
+        synchronized boolean markClosed() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            buffer.clear();
+            return true;
+        }
+        
+        void close() {
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // already completed by the container
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.buddy.service;
+
+import java.util.Map;
+
+/** One notification to one device token, as queued by NotificationDispatcher. */
+public record PushNotification(String token, String title, String body, Map<String, String> data) {
+    
+    public PushNotification {
+        data = data == null ? Map.of() : Map.copyOf(data);
+    }
+}
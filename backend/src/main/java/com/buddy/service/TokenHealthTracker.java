@@ -0,0 +1,174 @@
+package com.buddy.service;
+
+import com.buddy.repository.UserDeviceRepository;
+import com.google.firebase.messaging.MessagingErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks FCM tokens reported dead (UNREGISTERED or INVALID_ARGUMENT) and deactivates their
+ * UserDevice rows in batched bulk updates. Dead tokens are skipped by NotificationDispatcher
+ * straight away, before the next flush, and for a while after it in case they are still queued
+ * or cached. Inactive rows older than token-health.delete-after-days are deleted.
+ */
+@Service
+public class TokenHealthTracker implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenHealthTracker.class);
+    
+    @Autowired
+    private UserDeviceRepository userDeviceRepository;
+    
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+    
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${notifications.token-health.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+    
+    @Value("${notifications.token-health.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${notifications.token-health.remember-ms:3600000}")
+    private long rememberMs;
+    
+    @Value("${notifications.token-health.delete-after-days:30}")
+    private int deleteAfterDays;
+    
+    // token -> when it was reported dead; pending ones have not been written to the database yet
+    private final Map<String, Long> deadTokens = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final AtomicLong inactiveDevices = new AtomicLong();
+    private ScheduledExecutorService flusher;
+    private Counter pruned;
+    
+    @PostConstruct
+    public void init() {
+        notificationDispatcher.addFailureListener(this::onPermanentFailure);
+        notificationDispatcher.setTokenFilter(this::isDead);
+        
+        Gauge.builder("buddy.notifications.tokens.stale", pending, Map::size)
+                .description("Dead tokens waiting to be deactivated")
+                .register(meterRegistry);
+        Gauge.builder("buddy.notifications.tokens.inactive", inactiveDevices, AtomicLong::get)
+                .description("Deactivated device rows not yet deleted")
+                .register(meterRegistry);
+        pruned = Counter.builder("buddy.notifications.tokens.pruned")
+                .description("Device rows deactivated after FCM reported their token dead")
+                .register(meterRegistry);
+        
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("token-health-");
+        threadFactory.setDaemon(true);
+        flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        flusher.execute(this::refreshInactiveCount);
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (deleteAfterDays > 0) {
+            flusher.scheduleWithFixedDelay(this::deleteOldInactive, 1, 6, TimeUnit.HOURS);
+        }
+    }
+    
+    public static boolean isDeadTokenError(MessagingErrorCode errorCode) {
+        return errorCode == MessagingErrorCode.UNREGISTERED || errorCode == MessagingErrorCode.INVALID_ARGUMENT;
+    }
+    
+    public void onPermanentFailure(PushNotification notification, NotificationSender.Result result) {
+        if (isDeadTokenError(result.errorCode())) {
+            markDead(notification.token());
+        }
+    }
+    
+    public void markDead(String token) {
+        if (deadTokens.put(token, System.currentTimeMillis()) == null) {
+            pending.put(token, true);
+        }
+    }
+    
+    /** A token registered again by the app is live, whatever FCM said earlier. */
+    public void markAlive(String token) {
+        deadTokens.remove(token);
+        pending.remove(token);
+    }
+    
+    public boolean isDead(String token) {
+        return deadTokens.containsKey(token);
+    }
+    
+    void flush() {
+        try {
+            // Taken before the snapshot: rows re-registered after it are newer and stay active
+            LocalDateTime now = LocalDateTime.now();
+            List<String> tokens = new ArrayList<>(pending.keySet());
+            long deactivated = 0;
+            for (int from = 0; from < tokens.size(); from += batchSize) {
+                List<String> chunk = tokens.subList(from, Math.min(tokens.size(), from + batchSize));
+                List<Long> owners = userDeviceRepository.findUserIdsByFcmTokens(chunk);
+                int updated = userDeviceRepository.deactivateByFcmTokens(chunk, now);
+                deactivated += updated;
+                deviceRegistry.invalidateAll(owners);
+                chunk.forEach(pending::remove);
+                pruned.increment(updated);
+                logger.info("Deactivated {} devices with dead FCM tokens", updated);
+            }
+            
+            long forgetBefore = System.currentTimeMillis() - rememberMs;
+            deadTokens.entrySet().removeIf(entry -> entry.getValue() < forgetBefore && !pending.containsKey(entry.getKey()));
+            if (deactivated > 0) {
+                refreshInactiveCount();
+            }
+        } catch (RuntimeException e) {
+            // Pending tokens stay queued for the next flush
+            logger.warn("Failed to deactivate dead FCM tokens: {}", e.getMessage());
+        }
+    }
+    
+    void deleteOldInactive() {
+        try {
+            int deleted = userDeviceRepository.deleteInactiveUpdatedBefore(LocalDateTime.now().minusDays(deleteAfterDays));
+            if (deleted > 0) {
+                logger.info("Deleted {} devices inactive for over {} days", deleted, deleteAfterDays);
+                refreshInactiveCount();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete inactive devices: {}", e.getMessage());
+        }
+    }
+    
+    // A full count, so only run at startup and after rows were deactivated or deleted
+    private void refreshInactiveCount() {
+        try {
+            inactiveDevices.set(userDeviceRepository.countByIsActive(false));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to count inactive devices: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        flush();
+    }
+}
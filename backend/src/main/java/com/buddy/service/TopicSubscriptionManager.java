@@ -0,0 +1,243 @@
+package com.buddy.service;
+
+import com.buddy.model.BuddyRelationship;
+import com.buddy.model.User;
+import com.buddy.repository.BuddyRelationshipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps FCM topic subscriptions in step with buddy relationships, so a group notification is
+ * one topic send however many buddies and devices are behind it.
+ *
+ * Topics: goal_{goalId} holds the devices of the goal's active buddies, and buddies_of_{userId}
+ * holds the devices of everyone actively buddied with that user. Devices subscribe when a
+ * relationship becomes ACTIVE or a device is registered, and unsubscribe when it ENDS or the
+ * device is unregistered. Calls are queued and applied by one background thread, which nets
+ * out repeated changes and calls subscribeToTopic/unsubscribeFromTopic once per topic with up
+ * to 1000 tokens. Without Firebase everything is a no-op.
+ */
+@Service
+public class TopicSubscriptionManager implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TopicSubscriptionManager.class);
+    
+    // FCM's limit for one topic management call
+    private static final int MAX_TOKENS_PER_CALL = 1000;
+    
+    private static final String GOAL_TOPIC_PREFIX = "goal_";
+    private static final String BUDDIES_TOPIC_PREFIX = "buddies_of_";
+    
+    @Autowired(required = false)
+    private FirebaseMessagingService firebaseMessagingService;
+    
+    @Autowired
+    private BuddyRelationshipRepository buddyRelationshipRepository;
+    
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${notifications.topics.queue-capacity:50000}")
+    private int queueCapacity;
+    
+    private BlockingQueue<Op> queue;
+    private Thread worker;
+    private volatile boolean running = true;
+    
+    public static String goalTopic(Long goalId) {
+        return GOAL_TOPIC_PREFIX + goalId;
+    }
+    
+    public static String buddiesTopic(Long userId) {
+        return BUDDIES_TOPIC_PREFIX + userId;
+    }
+    
+    /** Topics this class subscribes devices to; clients must not join them themselves. */
+    public static boolean isManagedTopic(String topic) {
+        return topic.startsWith(GOAL_TOPIC_PREFIX) || topic.startsWith(BUDDIES_TOPIC_PREFIX);
+    }
+    
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (firebaseMessagingService == null) {
+            logger.info("Firebase disabled, FCM topic subscriptions are not managed");
+            return;
+        }
+        worker = new Thread(this::run, "fcm-topics");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /** The buddy (user2) follows the goal, and both users join each other's buddies topic. */
+    public void onRelationshipActive(BuddyRelationship relationship) {
+        User owner = relationship.getUser1();
+        User buddy = relationship.getUser2();
+        change(buddy, goalTopic(relationship.getGoal().getId()), true);
+        change(owner, buddiesTopic(buddy.getId()), true);
+        change(buddy, buddiesTopic(owner.getId()), true);
+    }
+    
+    /** Call after the relationship has been saved as ENDED. */
+    public void onRelationshipEnded(BuddyRelationship relationship) {
+        User owner = relationship.getUser1();
+        User buddy = relationship.getUser2();
+        change(buddy, goalTopic(relationship.getGoal().getId()), false);
+        // Still buddies through another goal: keep the mutual subscriptions
+        if (buddyRelationshipRepository.countActiveBetweenUsers(owner, buddy) == 0) {
+            change(owner, buddiesTopic(buddy.getId()), false);
+            change(buddy, buddiesTopic(owner.getId()), false);
+        }
+    }
+    
+    public void onDeviceRegistered(User user, String token) {
+        topicsOf(user).forEach(topic -> offer(new Op(Action.SUBSCRIBE, topic, token, null, null)));
+    }
+    
+    public void onDeviceUnregistered(User user, String token) {
+        topicsOf(user).forEach(topic -> offer(new Op(Action.UNSUBSCRIBE, topic, token, null, null)));
+    }
+    
+    /** One topic send, after any subscription changes queued before it. */
+    public void publish(String topic, String title, String body) {
+        offer(new Op(Action.PUBLISH, topic, null, title, body));
+    }
+    
+    private Set<String> topicsOf(User user) {
+        if (firebaseMessagingService == null) {
+            return Set.of();
+        }
+        Set<String> topics = new LinkedHashSet<>();
+        for (BuddyRelationship relationship : buddyRelationshipRepository.findActiveRelationshipsByUser(user)) {
+            if (relationship.getUser2().getId().equals(user.getId())) {
+                topics.add(goalTopic(relationship.getGoal().getId()));
+            }
+            topics.add(buddiesTopic(relationship.getOtherUser(user).getId()));
+        }
+        return topics;
+    }
+    
+    private void change(User user, String topic, boolean subscribe) {
+        if (firebaseMessagingService == null) {
+            return;
+        }
+        Action action = subscribe ? Action.SUBSCRIBE : Action.UNSUBSCRIBE;
+        Arrays.stream(deviceRegistry.tokensFor(user.getId()))
+                .forEach(token -> offer(new Op(action, topic, token, null, null)));
+    }
+    
+    private void offer(Op op) {
+        if (firebaseMessagingService == null) {
+            return;
+        }
+        if (!running || !queue.offer(op)) {
+            logger.warn("FCM topic queue full, dropped {} on {}", op.action(), op.topic());
+        }
+    }
+    
+    private void run() {
+        List<Op> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Op first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("FCM topic worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void apply(List<Op> batch) {
+        // Last change per (topic, token) wins; publishes go out after the subscriptions
+        Map<String, Map<String, Boolean>> desired = new LinkedHashMap<>();
+        List<Op> publishes = new ArrayList<>();
+        for (Op op : batch) {
+            if (op.action() == Action.PUBLISH) {
+                publishes.add(op);
+            } else {
+                desired.computeIfAbsent(op.topic(), t -> new LinkedHashMap<>())
+                        .put(op.token(), op.action() == Action.SUBSCRIBE);
+            }
+        }
+        
+        desired.forEach((topic, tokens) -> {
+            List<String> subscribe = new ArrayList<>();
+            List<String> unsubscribe = new ArrayList<>();
+            tokens.forEach((token, subscribed) -> (subscribed ? subscribe : unsubscribe).add(token));
+            call(Action.SUBSCRIBE, topic, subscribe);
+            call(Action.UNSUBSCRIBE, topic, unsubscribe);
+        });
+        
+        for (Op publish : publishes) {
+            try {
+                firebaseMessagingService.sendNotificationToTopic(publish.topic(), publish.title(), publish.body());
+                count(Action.PUBLISH, 1);
+            } catch (RuntimeException e) {
+                logger.warn("Topic send to {} failed: {}", publish.topic(), e.getMessage());
+            }
+        }
+    }
+    
+    private void call(Action action, String topic, List<String> tokens) {
+        for (int from = 0; from < tokens.size(); from += MAX_TOKENS_PER_CALL) {
+            List<String> chunk = tokens.subList(from, Math.min(tokens.size(), from + MAX_TOKENS_PER_CALL));
+            try {
+                if (action == Action.SUBSCRIBE) {
+                    firebaseMessagingService.subscribeToTopic(chunk, topic);
+                } else {
+                    firebaseMessagingService.unsubscribeFromTopic(chunk, topic);
+                }
+                count(action, chunk.size());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to {} {} tokens on {}: {}", action, chunk.size(), topic, e.getMessage());
+            }
+        }
+    }
+    
+    private void count(Action action, int amount) {
+        meterRegistry.counter("buddy.notifications.topics", "action", action.name().toLowerCase()).increment(amount);
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(5000);
+        }
+    }
+    
+    private enum Action { SUBSCRIBE, UNSUBSCRIBE, PUBLISH }
+    
+    private record Op(Action action, String topic, String token, String title, String body) {
+    }
+}
@@ -0,0 +1,59 @@
+-- Bring the V1 tables in line with the JPA entity mappings
+
+-- Buddy Relationships: user1 is the goal owner, user2 is the buddy who asked to join
+ALTER TABLE buddy_relationships RENAME COLUMN buddy_id TO user1_id;
+ALTER TABLE buddy_relationships RENAME COLUMN requester_id TO user2_id;
+
+ALTER TABLE buddy_relationships
+    ADD COLUMN IF NOT EXISTS type VARCHAR(20) DEFAULT 'PEER',
+    ADD COLUMN IF NOT EXISTS started_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS ended_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS compatibility_score INTEGER,
+    ADD COLUMN IF NOT EXISTS interaction_count INTEGER DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS last_interaction TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS notes VARCHAR(500);
+
+UPDATE buddy_relationships SET started_at = responded_at
+WHERE status = 'ACTIVE' AND started_at IS NULL;
+
+ALTER TABLE buddy_relationships
+    DROP COLUMN IF EXISTS requested_at,
+    DROP COLUMN IF EXISTS responded_at;
+
+-- Check-ins
+ALTER TABLE check_ins ALTER COLUMN progress_value DROP NOT NULL;
+
+ALTER TABLE check_ins
+    ADD COLUMN IF NOT EXISTS reflection VARCHAR(2000),
+    ADD COLUMN IF NOT EXISTS motivation_level INTEGER,
+    ADD COLUMN IF NOT EXISTS difficulty_level INTEGER,
+    ADD COLUMN IF NOT EXISTS completed BOOLEAN NOT NULL DEFAULT false,
+    ADD COLUMN IF NOT EXISTS buddy_validated BOOLEAN NOT NULL DEFAULT false,
+    ADD COLUMN IF NOT EXISTS buddy_validation_date TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS validated_by_user_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS check_in_photos (
+    check_in_id BIGINT NOT NULL REFERENCES check_ins(id) ON DELETE CASCADE,
+    photo_url VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS check_in_tags (
+    check_in_id BIGINT NOT NULL REFERENCES check_ins(id) ON DELETE CASCADE,
+    tag VARCHAR(255)
+);
+
+-- User Devices: tokens are globally unique in FCM, so one row per token
+ALTER TABLE user_devices RENAME COLUMN device_token TO fcm_token;
+ALTER TABLE user_devices ALTER COLUMN device_type DROP NOT NULL;
+ALTER TABLE user_devices ADD COLUMN IF NOT EXISTS app_version VARCHAR(255);
+
+DELETE FROM user_devices d
+USING user_devices newer
+WHERE d.fcm_token = newer.fcm_token AND d.updated_at < newer.updated_at;
+
+DELETE FROM user_devices d
+USING user_devices other
+WHERE d.fcm_token = other.fcm_token AND d.id < other.id;
+
+ALTER TABLE user_devices ADD CONSTRAINT uk_user_devices_fcm_token UNIQUE (fcm_token);
@@ -0,0 +1,36 @@
+-- Composite indexes matching the repository finders
+
+-- GoalRepository.findByUserAndStatus / countActiveGoalsByUser
+CREATE INDEX IF NOT EXISTS idx_goals_user_status ON goals(user_id, status);
+-- GoalRepository.findByUserOrderByCreatedAtDesc
+CREATE INDEX IF NOT EXISTS idx_goals_user_created_at ON goals(user_id, created_at DESC);
+-- GoalRepository.findAvailableGoalsByCategory / findAvailableGoalsForMatching
+CREATE INDEX IF NOT EXISTS idx_goals_public_active_category ON goals(category)
+    WHERE is_public = true AND status = 'ACTIVE';
+
+-- BuddyRelationshipRepository.findActiveRelationshipsByUser / findPendingRequestsForUser / findSentRequestsByUser
+CREATE INDEX IF NOT EXISTS idx_buddy_relationships_user1_status ON buddy_relationships(user1_id, status);
+CREATE INDEX IF NOT EXISTS idx_buddy_relationships_user2_status ON buddy_relationships(user2_id, status);
+-- BuddyRelationshipRepository.countActiveBuddiesByGoal and the matching sub-query
+CREATE INDEX IF NOT EXISTS idx_buddy_relationships_goal_status ON buddy_relationships(goal_id, status);
+
+-- CheckInRepository.findRecentCheckInsByUser / hasCheckedInToday
+CREATE INDEX IF NOT EXISTS idx_check_ins_user_date ON check_ins(user_id, check_in_date);
+-- CheckInRepository.findByUserAndGoalAndCheckInDate / findCheckInsInRange
+CREATE INDEX IF NOT EXISTS idx_check_ins_user_goal_date ON check_ins(user_id, goal_id, check_in_date);
+
+CREATE INDEX IF NOT EXISTS idx_check_in_photos_check_in ON check_in_photos(check_in_id);
+CREATE INDEX IF NOT EXISTS idx_check_in_tags_check_in ON check_in_tags(check_in_id);
+
+-- UserDeviceRepository.findByUserAndIsActive
+CREATE INDEX IF NOT EXISTS idx_user_devices_user_active ON user_devices(user_id, is_active);
+
+-- Superseded by the composites above or by unique constraints
+DROP INDEX IF EXISTS idx_goals_user_id;
+DROP INDEX IF EXISTS idx_goals_is_public;
+DROP INDEX IF EXISTS idx_buddy_relationships_requester;
+DROP INDEX IF EXISTS idx_buddy_relationships_buddy;
+DROP INDEX IF EXISTS idx_buddy_relationships_goal;
+DROP INDEX IF EXISTS idx_check_ins_user_id;
+DROP INDEX IF EXISTS idx_user_devices_user_id;
+DROP INDEX IF EXISTS idx_user_devices_token;
@@ -0,0 +1,25 @@
+-- Chat messages in Postgres (PostgresChatStore), keyed by conversation like the Firestore store
+
+ALTER TABLE chat_messages
+    ADD COLUMN IF NOT EXISTS conversation_id VARCHAR(64),
+    ADD COLUMN IF NOT EXISTS sender_name VARCHAR(255);
+
+-- Same ordering as ChatMessage.conversationIdFor (plain string comparison of the ids)
+UPDATE chat_messages
+SET conversation_id = LEAST(sender_id::text COLLATE "C", receiver_id::text COLLATE "C")
+        || '_' || GREATEST(sender_id::text COLLATE "C", receiver_id::text COLLATE "C")
+WHERE conversation_id IS NULL;
+
+ALTER TABLE chat_messages ALTER COLUMN conversation_id SET NOT NULL;
+ALTER TABLE chat_messages ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE chat_messages ALTER COLUMN message_type SET DEFAULT 'text';
+
+-- Keyset history reads: WHERE conversation_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_chat_messages_conversation_created_id
+    ON chat_messages(conversation_id, created_at DESC, id DESC);
+
+-- Unread list and count only ever look at unread rows
+CREATE INDEX IF NOT EXISTS idx_chat_messages_receiver_unread
+    ON chat_messages(receiver_id, created_at DESC) WHERE is_read = false;
+
+DROP INDEX IF EXISTS idx_chat_messages_created_at;
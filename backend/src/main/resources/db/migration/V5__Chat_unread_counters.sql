@@ -0,0 +1,16 @@
+-- Unread message counters per (user, conversation), maintained by PostgresChatStore on send and read
+
+CREATE TABLE IF NOT EXISTS chat_unread_counters (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    conversation_id VARCHAR(64) NOT NULL,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, conversation_id)
+);
+
+INSERT INTO chat_unread_counters (user_id, conversation_id, unread_count)
+SELECT receiver_id, conversation_id, count(*)
+FROM chat_messages
+WHERE is_read = false
+GROUP BY receiver_id, conversation_id
+ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread_count = EXCLUDED.unread_count;
@@ -0,0 +1,18 @@
+-- Per-user quiet hours for push notifications, evaluated in the user's time zone
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS time_zone VARCHAR(64),
+    ADD COLUMN IF NOT EXISTS quiet_hours_start TIME,
+    ADD COLUMN IF NOT EXISTS quiet_hours_end TIME;
+
+-- Events waiting to be collapsed into one digest per recipient by NotificationDigestScheduler
+CREATE TABLE IF NOT EXISTS notification_digest_events (
+    id BIGSERIAL PRIMARY KEY,
+    recipient_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    event_type VARCHAR(50) NOT NULL,
+    title VARCHAR(255),
+    body VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_digest_events_recipient
+    ON notification_digest_events(recipient_id, created_at);
@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+# Compares two JMH JSON result files benchmark by benchmark (needs jq). For avgt/sample modes
+# lower is better, for thrpt higher is better; the last column says which way it moved.
+#
+#   ./benchmarks/compare.sh benchmarks/results/v1.2.0.json benchmarks/results/v1.3.0.json
+set -euo pipefail
+
+OLD=$1
+NEW=$2
+
+jq -r -n --slurpfile old "${OLD}" --slurpfile new "${NEW}" '
+  def key: .benchmark + (if .params then " [" + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) + "]" else "" end);
+  ($old[0] | map({key: key, value: .primaryMetric.score}) | from_entries) as $before
+  | ["benchmark", "mode", "before", "after", "unit", "change", "verdict"],
+    ($new[0][] | key as $k | .mode as $mode | .primaryMetric as $m | $before[$k] as $b
+      | if $b == null then [$k, $mode, "-", ($m.score | tostring), $m.scoreUnit, "new", ""]
+        else (($m.score - $b) / $b * 100) as $pct
+          | (if $mode == "thrpt" then $pct else -$pct end) as $gain
+          | [$k, $mode, ($b * 1000 | round / 1000 | tostring), ($m.score * 1000 | round / 1000 | tostring), $m.scoreUnit,
+             (($pct * 10 | round / 10 | tostring) + "%"),
+             (if $gain <= -5 then "REGRESSION" elif $gain >= 5 then "improved" else "" end)]
+        end)
+  | @tsv' | if command -v column > /dev/null; then column -t -s $'\t'; else cat; fi
@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+# Builds the backend classes jar and the JMH benchmarks, runs them, and writes the results as
+# JSON to benchmarks/results/<label>.json (label defaults to git describe). Extra arguments go
+# to JMH, e.g. a benchmark regex or "-f 1 -wi 2 -i 3" for a quick run.
+#
+#   ./benchmarks/run.sh [label] [jmh args...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+LABEL=${1:-$(git describe --tags --always --dirty)}
+shift || true
+
+mvn -B -q -f backend/pom.xml -DskipTests install
+mvn -B -q -f benchmarks/pom.xml package
+
+mkdir -p benchmarks/results
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "benchmarks/results/${LABEL}.json" "$@"
+echo "Results written to benchmarks/results/${LABEL}.json"
@@ -0,0 +1,113 @@
+package com.buddy.benchmarks;
+
+import com.buddy.model.CheckIn;
+import com.buddy.model.Goal;
+import com.buddy.model.User;
+import com.buddy.repository.CheckInRepository;
+import com.buddy.repository.GoalRepository;
+import com.buddy.service.BuddyMatchingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BuddyMatchingService.calculateCompatibilityScore with the repositories replaced by in-memory
+ * fakes, so this measures the scoring itself and not the database. /buddies/recommendations
+ * runs it once per candidate goal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CompatibilityScoreBenchmark {
+    
+    @Param({"1", "10", "100"})
+    private int goalsPerUser;
+    
+    @Param({"0", "7", "30"})
+    private int checkInsPerUser;
+    
+    private BuddyMatchingService buddyMatchingService;
+    private User user;
+    private Goal candidateGoal;
+    
+    @Setup
+    public void setUp() {
+        user = user(1L, "requester");
+        User owner = user(2L, "owner");
+        
+        Map<Long, List<Goal>> goalsByUser = new HashMap<>();
+        Map<Long, List<CheckIn>> checkInsByUser = new HashMap<>();
+        for (User u : List.of(user, owner)) {
+            List<Goal> goals = new ArrayList<>();
+            List<CheckIn> checkIns = new ArrayList<>();
+            for (int i = 0; i < goalsPerUser; i++) {
+                Goal goal = goal(u.getId() * 1000 + i, u, Goal.GoalCategory.values()[i % Goal.GoalCategory.values().length]);
+                goal.setStatus(i % 4 == 3 ? Goal.GoalStatus.COMPLETED : Goal.GoalStatus.ACTIVE);
+                goals.add(goal);
+            }
+            for (int i = 0; i < checkInsPerUser; i++) {
+                CheckIn checkIn = new CheckIn(goals.get(i % goals.size()), u, 1, null);
+                checkIn.setCheckInDate(LocalDate.now().minusDays(i % 14));
+                checkIns.add(checkIn);
+            }
+            goalsByUser.put(u.getId(), goals);
+            checkInsByUser.put(u.getId(), checkIns);
+        }
+        candidateGoal = goalsByUser.get(owner.getId()).get(0);
+        
+        GoalRepository goalRepository = RepositoryFakes.fake(GoalRepository.class, Map.of(
+                "findByUserAndStatus", args -> goalsByUser.getOrDefault(((User) args[0]).getId(), List.of()).stream()
+                        .filter(g -> g.getStatus() == args[1])
+                        .toList()));
+        CheckInRepository checkInRepository = RepositoryFakes.fake(CheckInRepository.class, Map.of(
+                "findRecentCheckInsByUser", args -> checkInsByUser.getOrDefault(((User) args[0]).getId(), List.of()).stream()
+                        .filter(c -> !c.getCheckInDate().isBefore((LocalDate) args[1]))
+                        .toList()));
+        
+        buddyMatchingService = new BuddyMatchingService();
+        ReflectionTestUtils.setField(buddyMatchingService, "goalRepository", goalRepository);
+        ReflectionTestUtils.setField(buddyMatchingService, "checkInRepository", checkInRepository);
+    }
+    
+    @Benchmark
+    public int calculateCompatibilityScore() {
+        return buddyMatchingService.calculateCompatibilityScore(user, candidateGoal);
+    }
+    
+    static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com", "unused");
+        user.setId(id);
+        user.setFirstName(username);
+        return user;
+    }
+    
+    static Goal goal(Long id, User owner, Goal.GoalCategory category) {
+        Goal goal = new Goal("Goal " + id, "Benchmark goal " + id, category, Goal.GoalType.HABIT,
+                owner, LocalDate.now().plusDays(2), LocalDate.now().plusDays(60));
+        goal.setId(id);
+        goal.setTargetValue(30);
+        goal.setTargetUnit("workouts");
+        goal.setCurrentProgress(12);
+        goal.setMaxBuddies(3);
+        return goal;
+    }
+}
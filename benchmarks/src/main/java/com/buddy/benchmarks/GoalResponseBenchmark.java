@@ -0,0 +1,92 @@
+package com.buddy.benchmarks;
+
+import com.buddy.controller.GoalController;
+import com.buddy.model.Goal;
+import com.buddy.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The goal list endpoints: GoalController.createGoalResponse per goal, then Jackson writing
+ * the list the way the HTTP message converter does. The ObjectMapper is built with Spring's
+ * Jackson2ObjectMapperBuilder, which applies the same defaults as Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class GoalResponseBenchmark {
+    
+    @Param({"1", "20", "100"})
+    private int goals;
+    
+    private GoalController goalController;
+    private Method createGoalResponse;
+    private ObjectMapper objectMapper;
+    private List<Goal> goalList;
+    private List<Map<String, Object>> responses;
+    
+    @Setup
+    public void setUp() throws Exception {
+        goalController = new GoalController();
+        createGoalResponse = GoalController.class.getDeclaredMethod("createGoalResponse", Goal.class);
+        createGoalResponse.setAccessible(true);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        
+        User owner = CompatibilityScoreBenchmark.user(1L, "owner");
+        goalList = new ArrayList<>();
+        for (int i = 0; i < goals; i++) {
+            Goal goal = CompatibilityScoreBenchmark.goal((long) i, owner,
+                    Goal.GoalCategory.values()[i % Goal.GoalCategory.values().length]);
+            goal.setCreatedAt(LocalDateTime.now().minusDays(i));
+            goal.setUpdatedAt(LocalDateTime.now());
+            goalList.add(goal);
+        }
+        responses = buildResponses();
+    }
+    
+    @Benchmark
+    public List<Map<String, Object>> buildResponses() throws Exception {
+        List<Map<String, Object>> result = new ArrayList<>(goalList.size());
+        for (Goal goal : goalList) {
+            result.add(toResponse(goal));
+        }
+        return result;
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("goals", responses, "totalGoals", responses.size()));
+    }
+    
+    @Benchmark
+    public byte[] buildAndSerialize() throws Exception {
+        List<Map<String, Object>> built = buildResponses();
+        return objectMapper.writeValueAsBytes(Map.of("goals", built, "totalGoals", built.size()));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toResponse(Goal goal) throws Exception {
+        return (Map<String, Object>) createGoalResponse.invoke(goalController, goal);
+    }
+}
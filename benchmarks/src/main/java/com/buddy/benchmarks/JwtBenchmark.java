@@ -0,0 +1,67 @@
+package com.buddy.benchmarks;
+
+import com.buddy.model.User;
+import com.buddy.security.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtils as used on every request: AuthTokenFilter validates the token and extracts the
+ * username, /auth/login generates one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtBenchmark {
+    
+    // HS256 needs at least 256 bits of key
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+    
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        user = new User("benchmark", "benchmark@example.com", "unused");
+        token = jwtUtils.generateToken(user);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user);
+    }
+    
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+    
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+    
+    /** What AuthTokenFilter does per request: validate, then parse again for the username. */
+    @Benchmark
+    public String validateAndExtract() {
+        return jwtUtils.validateToken(token) ? jwtUtils.extractUsername(token) : null;
+    }
+}
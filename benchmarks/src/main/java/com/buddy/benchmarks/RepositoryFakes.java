@@ -0,0 +1,34 @@
+package com.buddy.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repository interfaces. Only the methods named in the
+ * answers map are implemented; anything else throws, so a benchmark can't silently measure
+ * a path it didn't set up.
+ */
+final class RepositoryFakes {
+    
+    private RepositoryFakes() {
+    }
+    
+    static <T> T fake(Class<T> repositoryType, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (self, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    return switch (method.getName()) {
+                        case "toString" -> "Fake" + repositoryType.getSimpleName();
+                        case "hashCode" -> System.identityHashCode(self);
+                        case "equals" -> self == args[0];
+                        default -> throw new UnsupportedOperationException(
+                                repositoryType.getSimpleName() + "." + method.getName() + " is not faked");
+                    };
+                });
+        return repositoryType.cast(proxy);
+    }
+}
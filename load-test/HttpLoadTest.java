@@ -0,0 +1,322 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load driver built on the JDK HttpClient (no dependencies).
+ *
+ * Run with: java load-test/HttpLoadTest.java --base-url http://localhost:8080/api \
+ *     --concurrency 200 --duration 60 --path /goals --path /buddies/my-buddies
+ *
+ * Logs in once, then each worker requests the paths round-robin until the duration ends.
+ * Prints sustained requests/second and latency percentiles per path and overall.
+ *
+ * With --scenario journey, each worker instead plays a random synthetic user (see
+ * SyntheticData.java; --users must match the generated count): login, dashboard,
+ * recommendations, goal list, progress update, buddy list, chat send and chat history, then
+ * repeats as the same user, logging in as another one every --relogin-every journeys.
+ * --think-ms adds a pause between steps. Results are reported per step.
+ */
+public class HttpLoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern BUDDY_ID = Pattern.compile("\"buddy\"\\s*:\\s*\\{[^}]*?\"id\"\\s*:\\s*(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, List<String>> options = parseArgs(args);
+        String baseUrl = option(options, "base-url", "http://localhost:8080/api");
+        String username = option(options, "user", "testuser");
+        String password = option(options, "password", "password123");
+        int concurrency = Integer.parseInt(option(options, "concurrency", "100"));
+        int durationSeconds = Integer.parseInt(option(options, "duration", "30"));
+        int warmupSeconds = Integer.parseInt(option(options, "warmup", "5"));
+        List<String> paths = options.getOrDefault("path", List.of("/goals", "/buddies/my-buddies", "/auth/me"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(java.util.concurrent.Executors.newFixedThreadPool(Math.max(4, concurrency / 10), runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .build();
+
+        if (option(options, "scenario", "paths").equals("journey")) {
+            Journeys journeys = new Journeys(client, baseUrl, password,
+                    Integer.parseInt(option(options, "users", "10000")),
+                    Integer.parseInt(option(options, "relogin-every", "10")),
+                    Long.parseLong(option(options, "think-ms", "0")));
+            System.out.printf("Warming up for %ds with %d workers...%n", warmupSeconds, concurrency);
+            journeys.run(concurrency, warmupSeconds);
+            journeys = journeys.fresh();
+            System.out.printf("Measuring for %ds with %d workers...%n", durationSeconds, concurrency);
+            journeys.run(concurrency, durationSeconds);
+            journeys.print(durationSeconds);
+            return;
+        }
+
+        String token = login(client, baseUrl, username, password);
+
+        System.out.printf("Warming up for %ds with %d workers...%n", warmupSeconds, concurrency);
+        run(client, baseUrl, token, paths, concurrency, warmupSeconds);
+        System.out.printf("Measuring for %ds with %d workers...%n", durationSeconds, concurrency);
+        Map<String, Recorder> results = run(client, baseUrl, token, paths, concurrency, durationSeconds);
+
+        Recorder total = new Recorder();
+        results.values().forEach(total::merge);
+        System.out.printf("%n%-28s %9s %9s %8s %8s %8s %8s%n", "path", "requests", "errors", "rps", "p50 ms", "p95 ms", "p99 ms");
+        results.forEach((path, recorder) -> recorder.print(path, durationSeconds));
+        total.print("TOTAL", durationSeconds);
+    }
+
+    static Map<String, Recorder> run(HttpClient client, String baseUrl, String token, List<String> paths,
+                                     int concurrency, int seconds) throws InterruptedException {
+        Map<String, Recorder> results = new ConcurrentHashMap<>();
+        paths.forEach(path -> results.put(path, new Recorder()));
+        long endAt = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int w = 0; w < concurrency; w++) {
+            int offset = w;
+            Thread worker = new Thread(() -> {
+                int i = offset;
+                while (System.nanoTime() < endAt) {
+                    String path = paths.get(i++ % paths.size());
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .timeout(Duration.ofSeconds(10))
+                            .header("Authorization", "Bearer " + token)
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() < 400;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    results.get(path).record(System.nanoTime() - start, ok);
+                }
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        return results;
+    }
+
+    /** The journey scenario; one instance per measured phase. */
+    static class Journeys {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String password;
+        private final int users;
+        private final int reloginEvery;
+        private final long thinkMs;
+        private final Map<String, Recorder> steps = java.util.Collections.synchronizedMap(new LinkedHashMap<>());
+        private final AtomicLong completed = new AtomicLong();
+
+        Journeys(HttpClient client, String baseUrl, String password, int users, int reloginEvery, long thinkMs) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.password = password;
+            this.users = users;
+            this.reloginEvery = reloginEvery;
+            this.thinkMs = thinkMs;
+            // Fixed print order
+            for (String step : List.of("POST /auth/login", "GET /dashboard", "GET /buddies/recommendations", "GET /goals",
+                    "POST /goals/{id}/progress", "GET /buddies/my-buddies", "POST /chat/send", "GET /chat/history/{id}")) {
+                steps.put(step, new Recorder());
+            }
+        }
+
+        Journeys fresh() {
+            return new Journeys(client, baseUrl, password, users, reloginEvery, thinkMs);
+        }
+
+        void run(int concurrency, int seconds) throws InterruptedException {
+            long endAt = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for (int w = 0; w < concurrency; w++) {
+                Thread worker = new Thread(() -> {
+                    java.util.concurrent.ThreadLocalRandom random = java.util.concurrent.ThreadLocalRandom.current();
+                    String token = null;
+                    int sinceLogin = 0;
+                    while (System.nanoTime() < endAt) {
+                        if (token == null || sinceLogin >= reloginEvery) {
+                            token = login(String.format("load_%07d", random.nextInt(users)));
+                            sinceLogin = 0;
+                            if (token == null) {
+                                continue;
+                            }
+                        }
+                        journey(token, random);
+                        sinceLogin++;
+                        completed.incrementAndGet();
+                    }
+                    done.countDown();
+                });
+                worker.setDaemon(true);
+                worker.start();
+            }
+            done.await();
+        }
+
+        private void journey(String token, java.util.Random random) {
+            get("GET /dashboard", "/dashboard", token);
+            get("GET /buddies/recommendations", "/buddies/recommendations", token);
+
+            String goals = get("GET /goals", "/goals", token);
+            Matcher goalId = goals == null ? null : ID.matcher(goals);
+            if (goalId != null && goalId.find()) {
+                send("POST /goals/{id}/progress", "/goals/" + goalId.group(1) + "/progress", token,
+                        "{\"progress\":" + random.nextInt(101) + "}");
+            }
+
+            String buddies = get("GET /buddies/my-buddies", "/buddies/my-buddies", token);
+            Matcher buddyId = buddies == null ? null : BUDDY_ID.matcher(buddies);
+            if (buddyId != null && buddyId.find()) {
+                send("POST /chat/send", "/chat/send", token,
+                        "{\"receiverId\":\"" + buddyId.group(1) + "\",\"content\":\"load test " + random.nextInt(1000) + "\"}");
+                get("GET /chat/history/{id}", "/chat/history/" + buddyId.group(1) + "?limit=30", token);
+            }
+        }
+
+        private String login(String username) {
+            String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+            String response = call("POST /auth/login", HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            Matcher matcher = response == null ? null : TOKEN.matcher(response);
+            return matcher != null && matcher.find() ? matcher.group(1) : null;
+        }
+
+        private String get(String step, String path, String token) {
+            return call(step, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .GET());
+        }
+
+        private String send(String step, String path, String token, String json) {
+            return call(step, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)));
+        }
+
+        /** Sends the request, records it under the step, and returns the body of a 2xx/3xx response. */
+        private String call(String step, HttpRequest.Builder request) {
+            long start = System.nanoTime();
+            String body = null;
+            boolean ok;
+            try {
+                HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(10)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                ok = response.statusCode() < 400;
+                if (ok) {
+                    body = response.body();
+                }
+            } catch (Exception e) {
+                ok = false;
+            }
+            steps.get(step).record(System.nanoTime() - start, ok);
+            if (thinkMs > 0) {
+                try {
+                    Thread.sleep(thinkMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return body;
+        }
+
+        void print(int seconds) {
+            Recorder total = new Recorder();
+            steps.values().forEach(total::merge);
+            System.out.printf("%n%-28s %9s %9s %8s %8s %8s %8s%n", "step", "requests", "errors", "rps", "p50 ms", "p95 ms", "p99 ms");
+            steps.forEach((step, recorder) -> recorder.print(step, seconds));
+            total.print("TOTAL", seconds);
+            System.out.printf("%njourneys: %d (%.1f/s)%n", completed.get(), completed.get() / (double) seconds);
+        }
+    }
+
+    static String login(HttpClient client, String baseUrl, String username, String password) throws Exception {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed (" + response.statusCode() + "): " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    static Map<String, List<String>> parseArgs(String[] args) {
+        Map<String, List<String>> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.computeIfAbsent(args[i].replaceFirst("^--", ""), k -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+
+    static String option(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values == null ? defaultValue : values.get(0);
+    }
+
+    /** Collects raw latencies; fine for runs of a few million requests. */
+    static class Recorder {
+        private long[] latencies = new long[1 << 16];
+        private int count;
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors.addAndGet(other.errors.get());
+        }
+
+        synchronized void print(String label, int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("%-28s %9d %9d %8.1f %8.1f %8.1f %8.1f%n", label, count, errors.get(),
+                    count / (double) seconds, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
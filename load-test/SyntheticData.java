@@ -0,0 +1,323 @@
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a synthetic dataset as a psql script of COPY blocks (no dependencies).
+ *
+ * Run with: java load-test/SyntheticData.java --users 10000 --goals-per-user 3 \
+ *     | docker compose exec -T postgres psql -U buddy_user -d buddy_db
+ *
+ * Users are load_0000000 ... with testuser's password, so start the backend once first
+ * (migrations and DataInitializer). Activity is heavy-tailed: a few users own many goals,
+ * buddies and check-ins, most have one or two. Ids start at --id-base and earlier synthetic
+ * rows are deleted first, so re-running with the same --seed rebuilds the same data.
+ */
+public class SyntheticData {
+
+    private static final String[] FIRST_NAMES = {"Alex", "Sam", "Jordan", "Taylor", "Morgan", "Casey", "Riley",
+            "Jamie", "Avery", "Quinn", "Priya", "Wei", "Lucia", "Omar", "Hana", "Mateo", "Zara", "Ivan"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Chen", "Okafor", "Müller", "Rossi", "Kim",
+            "Novak", "Silva", "Haddad", "Tanaka", "Patel", "Johnson", "Larsen"};
+    private static final String[] TIME_ZONES = {"America/New_York", "America/Chicago", "America/Los_Angeles",
+            "Europe/London", "Europe/Berlin", "Asia/Kolkata", "Asia/Tokyo", "Australia/Sydney"};
+    // Category weights roughly follow what users pick first: fitness and health dominate
+    private static final String[] CATEGORIES = {"FITNESS", "HEALTH", "EDUCATION", "CAREER", "HOBBY", "CREATIVE",
+            "SOCIAL", "SPIRITUAL", "OTHER"};
+    private static final double[] CATEGORY_WEIGHTS = {30, 18, 15, 10, 9, 7, 5, 3, 3};
+    private static final String[] TYPES = {"HABIT", "PROJECT", "CHALLENGE", "LEARNING", "EVENT"};
+    private static final double[] TYPE_WEIGHTS = {45, 15, 20, 15, 5};
+    private static final String[] DIFFICULTIES = {"EASY", "MEDIUM", "HARD", "EXPERT"};
+    private static final double[] DIFFICULTY_WEIGHTS = {25, 45, 22, 8};
+    private static final String[] CHAT_LINES = {"Done for today!", "How did your session go?", "Missed yesterday, back on it",
+            "You've got this 💪", "Can we check in tonight?", "New personal best!", "Struggling a bit this week",
+            "Thanks for keeping me honest", "See you tomorrow", "Halfway there 🎉"};
+
+    private final Random random;
+    private final PrintStream out;
+    private final LocalDate today = LocalDate.now();
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private String currentTable;
+
+    SyntheticData(long seed, PrintStream out) {
+        this.random = new Random(seed);
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parseArgs(args);
+        int users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        double goalsPerUser = Double.parseDouble(options.getOrDefault("goals-per-user", "3"));
+        int historyDays = Integer.parseInt(options.getOrDefault("days", "60"));
+        long idBase = Long.parseLong(options.getOrDefault("id-base", "10000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, StandardCharsets.UTF_8);
+        SyntheticData generator = new SyntheticData(seed, out);
+        generator.generate(users, goalsPerUser, historyDays, idBase);
+        out.flush();
+        generator.counts.forEach((table, count) -> System.err.printf("%-22s %,10d rows%n", table, count));
+    }
+
+    void generate(int userCount, double goalsPerUser, int historyDays, long idBase) {
+        out.println("\\set ON_ERROR_STOP on");
+        out.println("BEGIN;");
+        out.println("DELETE FROM users WHERE username LIKE 'load\\_%';");
+
+        // Activity weight per user: Pareto, so a small share of users generates most of the data
+        double[] activity = new double[userCount];
+        double[] cumulative = new double[userCount];
+        double sum = 0;
+        for (int i = 0; i < userCount; i++) {
+            activity[i] = Math.min(50, 1 / Math.pow(1 - random.nextDouble(), 1 / 1.5));
+            sum += activity[i];
+            cumulative[i] = sum;
+        }
+
+        copy("users", "id, username, email, password, first_name, last_name, role, enabled, time_zone, "
+                + "quiet_hours_start, quiet_hours_end, created_at, updated_at");
+        for (int i = 0; i < userCount; i++) {
+            String username = String.format("load_%07d", i);
+            boolean quietHours = random.nextDouble() < 0.3;
+            LocalDateTime createdAt = LocalDateTime.now().minusDays(historyDays + random.nextInt(180));
+            row(idBase + i, username, username + "@load.test", "unset", pick(FIRST_NAMES), pick(LAST_NAMES), "USER", true,
+                    pick(TIME_ZONES), quietHours ? "22:00" : null, quietHours ? "07:00" : null, createdAt, createdAt);
+        }
+        endCopy();
+
+        // Goals go to users in proportion to activity
+        int goalCount = (int) Math.round(userCount * goalsPerUser);
+        List<Goal> goals = new ArrayList<>(goalCount);
+        copy("goals", "id, user_id, title, description, category, type, difficulty, status, start_date, target_date, "
+                + "target_value, target_unit, current_progress, is_public, max_buddies, requires_location, created_at, updated_at");
+        for (int g = 0; g < goalCount; g++) {
+            int owner = weightedUser(cumulative, sum);
+            String category = weighted(CATEGORIES, CATEGORY_WEIGHTS);
+            LocalDate start = today.minusDays(random.nextInt(historyDays + 1));
+            LocalDate target = start.plusDays(14 + random.nextInt(170));
+            double roll = random.nextDouble();
+            String status = target.isBefore(today) ? (roll < 0.6 ? "COMPLETED" : "CANCELLED")
+                    : roll < 0.8 ? "ACTIVE" : roll < 0.9 ? "PAUSED" : roll < 0.97 ? "COMPLETED" : "CANCELLED";
+            int targetValue = 10 + random.nextInt(90);
+            int progress = status.equals("COMPLETED") ? targetValue : random.nextInt(targetValue);
+            int maxBuddies = 1 + (int) Math.min(4, -Math.log(1 - random.nextDouble()) * 1.2);
+            boolean isPublic = random.nextDouble() < 0.8;
+            Goal goal = new Goal(idBase + g, owner, status, isPublic, maxBuddies, start);
+            goals.add(goal);
+            LocalDateTime createdAt = start.atStartOfDay();
+            row(goal.id, idBase + owner, category.charAt(0) + category.substring(1).toLowerCase() + " goal #" + g,
+                    "Synthetic " + category.toLowerCase() + " goal", category, weighted(TYPES, TYPE_WEIGHTS),
+                    weighted(DIFFICULTIES, DIFFICULTY_WEIGHTS), status, start, target, targetValue, "sessions", progress,
+                    isPublic, maxBuddies, false, createdAt, createdAt);
+        }
+        endCopy();
+
+        // Buddy requests on public goals: active owners attract more, up to max_buddies become ACTIVE
+        List<long[]> activePairs = new ArrayList<>();
+        long relationshipId = idBase;
+        copy("buddy_relationships", "id, user1_id, user2_id, goal_id, status, type, started_at, ended_at, "
+                + "compatibility_score, interaction_count, last_interaction, created_at, updated_at");
+        for (Goal goal : goals) {
+            if (!goal.isPublic) {
+                continue;
+            }
+            int requests = (int) Math.min(goal.maxBuddies + 2, -Math.log(1 - random.nextDouble()) * activity[goal.owner] / 2);
+            Set<Integer> buddies = new HashSet<>();
+            int accepted = 0;
+            for (int r = 0; r < requests; r++) {
+                int buddy = weightedUser(cumulative, sum);
+                if (buddy == goal.owner || !buddies.add(buddy)) {
+                    continue;
+                }
+                String status;
+                if (goal.status.equals("ACTIVE") && accepted < goal.maxBuddies && random.nextDouble() < 0.75) {
+                    status = random.nextDouble() < 0.1 ? "ENDED" : "ACTIVE";
+                    accepted++;
+                } else {
+                    status = goal.status.equals("COMPLETED") ? "COMPLETED" : "PENDING";
+                }
+                LocalDateTime createdAt = goal.start.atStartOfDay().plusHours(random.nextInt(72));
+                LocalDateTime startedAt = status.equals("PENDING") ? null : createdAt.plusHours(1 + random.nextInt(48));
+                LocalDateTime endedAt = status.equals("ENDED") ? startedAt.plusDays(1 + random.nextInt(20)) : null;
+                int interactions = startedAt == null ? 0 : random.nextInt(60);
+                row(relationshipId++, idBase + goal.owner, idBase + buddy, goal.id, status, "PEER", startedAt, endedAt,
+                        40 + random.nextInt(56), interactions, startedAt == null ? null : LocalDateTime.now().minusHours(random.nextInt(96)),
+                        createdAt, createdAt);
+                if (status.equals("ACTIVE")) {
+                    activePairs.add(new long[]{idBase + goal.owner, idBase + buddy, goal.id});
+                }
+            }
+        }
+        endCopy();
+
+        // Daily check-ins on active goals; consistency grows with activity
+        long checkInId = idBase;
+        copy("check_ins", "id, user_id, goal_id, progress_value, notes, check_in_date, motivation_level, "
+                + "difficulty_level, completed, buddy_validated, created_at, updated_at");
+        for (Goal goal : goals) {
+            if (!goal.status.equals("ACTIVE")) {
+                continue;
+            }
+            double consistency = Math.min(0.95, 0.2 + activity[goal.owner] / 10);
+            for (LocalDate day = goal.start; !day.isAfter(today); day = day.plusDays(1)) {
+                if (random.nextDouble() >= consistency) {
+                    continue;
+                }
+                LocalDateTime at = day.atTime(6 + random.nextInt(16), random.nextInt(60));
+                row(checkInId++, idBase + goal.owner, goal.id, 1 + random.nextInt(3), null, day, 1 + random.nextInt(10),
+                        1 + random.nextInt(10), random.nextDouble() < 0.8, random.nextDouble() < 0.3, at, at);
+            }
+        }
+        endCopy();
+
+        // Chat between active buddies, oldest first; only the tail of a conversation is unread
+        long messageId = idBase;
+        copy("chat_messages", "id, conversation_id, sender_id, sender_name, receiver_id, goal_id, message, "
+                + "message_type, is_read, created_at");
+        for (long[] pair : activePairs) {
+            int messages = (int) Math.min(300, -Math.log(1 - random.nextDouble()) * 15);
+            String conversationId = conversationId(pair[0], pair[1]);
+            LocalDateTime at = LocalDateTime.now().minusDays(historyDays);
+            for (int m = 0; m < messages; m++) {
+                at = at.plusMinutes(1 + random.nextInt(historyDays * 1440 / Math.max(1, messages)));
+                boolean fromOwner = random.nextBoolean();
+                long sender = fromOwner ? pair[0] : pair[1];
+                long receiver = fromOwner ? pair[1] : pair[0];
+                row(messageId++, conversationId, sender, "Load User", receiver, pair[2], pick(CHAT_LINES), "text",
+                        m < messages - 3 || random.nextBoolean(), at);
+            }
+        }
+        endCopy();
+
+        long deviceId = idBase;
+        copy("user_devices", "id, user_id, fcm_token, device_type, device_name, app_version, is_active, created_at, updated_at");
+        for (int i = 0; i < userCount; i++) {
+            double roll = random.nextDouble();
+            int devices = roll < 0.2 ? 0 : roll < 0.8 ? 1 : 2;
+            for (int d = 0; d < devices; d++) {
+                LocalDateTime createdAt = LocalDateTime.now().minusDays(random.nextInt(historyDays + 1));
+                boolean ios = random.nextDouble() < 0.45;
+                row(deviceId++, idBase + i, "load-" + (idBase + i) + "-" + d, ios ? "ios" : "android",
+                        ios ? "iPhone" : "Pixel", "1.0." + random.nextInt(5), true, createdAt, createdAt);
+            }
+        }
+        endCopy();
+
+        out.println("UPDATE users SET password = (SELECT password FROM users WHERE username = 'testuser') "
+                + "WHERE username LIKE 'load\\_%';");
+        // Same as the V5 backfill, for the synthetic receivers only
+        out.println("INSERT INTO chat_unread_counters (user_id, conversation_id, unread_count) "
+                + "SELECT receiver_id, conversation_id, count(*) FROM chat_messages "
+                + "WHERE is_read = false AND receiver_id >= " + idBase + " GROUP BY receiver_id, conversation_id "
+                + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread_count = EXCLUDED.unread_count;");
+        for (String table : List.of("users", "goals", "buddy_relationships", "check_ins", "chat_messages", "user_devices")) {
+            out.printf("SELECT setval(pg_get_serial_sequence('%s', 'id'), (SELECT MAX(id) FROM %s));%n", table, table);
+        }
+        out.println("COMMIT;");
+        out.println("ANALYZE;");
+    }
+
+    /** Same ordering as ChatMessage.conversationIdFor: plain string comparison of the ids. */
+    static String conversationId(long a, long b) {
+        String first = Long.toString(a);
+        String second = Long.toString(b);
+        return first.compareTo(second) <= 0 ? first + "_" + second : second + "_" + first;
+    }
+
+    private int weightedUser(double[] cumulative, double sum) {
+        double target = random.nextDouble() * sum;
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String weighted(String[] values, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < values.length; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private void copy(String table, String columns) {
+        out.printf("COPY %s (%s) FROM STDIN;%n", table, columns);
+        counts.put(table, 0);
+        currentTable = table;
+    }
+
+    private void endCopy() {
+        out.println("\\.");
+    }
+
+    /** One row in COPY text format: tab separated, \N for null. */
+    private void row(Object... values) {
+        StringBuilder line = new StringBuilder(128);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append('\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                line.append("\\N");
+            } else if (value instanceof Boolean b) {
+                line.append(b ? 't' : 'f');
+            } else if (value instanceof LocalDateTime timestamp) {
+                line.append(timestamp.truncatedTo(ChronoUnit.SECONDS));
+            } else {
+                String text = value.toString();
+                for (int c = 0; c < text.length(); c++) {
+                    char ch = text.charAt(c);
+                    switch (ch) {
+                        case '\\' -> line.append("\\\\");
+                        case '\t' -> line.append("\\t");
+                        case '\n' -> line.append("\\n");
+                        case '\r' -> line.append("\\r");
+                        default -> line.append(ch);
+                    }
+                }
+            }
+        }
+        out.println(line);
+        counts.merge(currentTable, 1, Integer::sum);
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Goal(long id, int owner, String status, boolean isPublic, int maxBuddies, LocalDate start) {
+    }
+}
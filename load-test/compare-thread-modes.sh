@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# Compares sustained throughput and tail latency of the backend on platform threads vs
+# virtual threads. Needs a Java 21 JDK on PATH and the database from docker-compose running.
+#
+#   ./load-test/compare-thread-modes.sh [concurrency] [duration-seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-400}
+DURATION=${2:-60}
+PATHS="--path /dashboard --path /goals --path /buddies/my-buddies --path /buddies/recommendations"
+
+(cd backend && mvn -B -q -Pjava21 -DskipTests package)
+JAR=backend/target/buddy-backend-0.0.1-SNAPSHOT.jar
+
+run_mode() {
+  local label=$1 profiles=$2
+  echo "=== ${label} (profiles: ${profiles}) ==="
+  SPRING_PROFILES_ACTIVE=${profiles} RATE_LIMIT_ENABLED=false java -jar "${JAR}" > "load-test/${label}.log" 2>&1 &
+  local pid=$!
+  until curl -sf http://localhost:8080/api/actuator/health > /dev/null; do sleep 1; done
+  java load-test/HttpLoadTest.java --concurrency "${CONCURRENCY}" --duration "${DURATION}" ${PATHS} \
+    | tee "load-test/${label}.txt"
+  kill "${pid}"; wait "${pid}" || true
+}
+
+run_mode platform-threads prod
+run_mode virtual-threads prod,vthreads
+
+echo
+echo "Pinning events (virtual-threads run):"
+grep -c "Virtual thread pinned" load-test/virtual-threads.log || true
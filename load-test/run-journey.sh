@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Loads the synthetic dataset into the docker-compose database and runs the user-journey
+# scenario against a backend that is already running on localhost:8080 with
+# RATE_LIMIT_ENABLED=false (all logins come from one IP). Re-running replaces
+# the previous load_ users, so results are comparable across runs with the same seed.
+#
+#   ./load-test/run-journey.sh [users] [concurrency] [duration-seconds]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+USERS=${1:-10000}
+CONCURRENCY=${2:-200}
+DURATION=${3:-60}
+SEED=${SEED:-42}
+
+java -Dfile.encoding=UTF-8 load-test/SyntheticData.java --users "${USERS}" --seed "${SEED}" \
+  | docker compose exec -T postgres psql -q -U buddy_user -d buddy_db
+
+java load-test/HttpLoadTest.java --scenario journey --users "${USERS}" \
+  --concurrency "${CONCURRENCY}" --duration "${DURATION}" \
+  | tee "load-test/journey-${USERS}u-${CONCURRENCY}c.txt"
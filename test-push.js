@@ -0,0 +1,70 @@
+// Push stream test script (no Firebase needed)
+// Run this with: node test-push.js
+// Opens testuser's /push/stream, has a second user request to buddy up on one of
+// testuser's goals, and prints the server-sent events that arrive.
+
+const axios = require('axios');
+
+const API_BASE = 'http://localhost:8080/api';
+
+async function login(username, password) {
+  const response = await axios.post(`${API_BASE}/auth/login`, { username, password });
+  return response.data.token;
+}
+
+async function testPush() {
+  try {
+    console.log('🔍 Testing push stream...\n');
+
+    const ownerToken = await login('testuser', 'password123');
+    const ownerHeaders = { Authorization: `Bearer ${ownerToken}` };
+
+    // Step 1: open the stream and print events as they arrive
+    console.log('1. Opening /push/stream as testuser...');
+    const stream = await axios.get(`${API_BASE}/push/stream`, {
+      headers: { ...ownerHeaders, Accept: 'text/event-stream' },
+      responseType: 'stream',
+    });
+    stream.data.on('data', (chunk) => {
+      chunk.toString().split('\n\n').filter(Boolean).forEach((frame) => {
+        console.log('📨', frame.replace(/\n/g, ' | '));
+      });
+    });
+
+    // Step 2: make sure testuser owns a public goal
+    const goal = await axios.post(`${API_BASE}/goals`, {
+      title: 'Push test goal',
+      category: 'FITNESS',
+      startDate: '2025-01-01',
+      targetDate: '2025-12-31',
+      isPublic: true,
+    }, { headers: ownerHeaders });
+    const goalId = goal.data.goalId || goal.data.id;
+
+    // Step 3: a second user requests to buddy up, which pushes buddy.request to testuser
+    console.log('\n2. Sending a buddy request from pushbuddy...');
+    await axios.post(`${API_BASE}/auth/register`, {
+      username: 'pushbuddy',
+      email: 'pushbuddy@example.com',
+      password: 'password123',
+      firstName: 'Push',
+      lastName: 'Buddy',
+    }).catch(() => {}); // already registered
+    const buddyToken = await login('pushbuddy', 'password123');
+    await axios.post(`${API_BASE}/buddies/request/${goalId}`, {}, {
+      headers: { Authorization: `Bearer ${buddyToken}` },
+    }).catch((error) => console.log('⚠️ Buddy request:', error.response?.data || error.message));
+
+    setTimeout(() => {
+      console.log('\n✅ Done');
+      stream.data.destroy();
+      process.exit(0);
+    }, 3000);
+
+  } catch (error) {
+    console.log('❌ Error:', error.response?.status, error.response?.data || error.message);
+    process.exit(1);
+  }
+}
+
+testPush();